@@ -0,0 +1,43 @@
+package com.example.registration.config;
+
+import com.example.registration.service.UserCacheInvalidator;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+// Local, bounded Hibernate second-level cache regions; sizes and expiry live in application.conf
+@Configuration
+public class CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+    }
+
+    // Hand Hibernate this exact manager, so the regions it creates are the ones bound to metrics below
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // Entity regions exist once the EntityManagerFactory is up, named query regions only on first use,
+    // so that one is opened here; exposes cache_gets/puts/evictions per region
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindCacheMetrics(ApplicationReadyEvent event) {
+        CacheManager cacheManager = event.getApplicationContext().getBean(CacheManager.class);
+        MeterRegistry registry = event.getApplicationContext().getBean(MeterRegistry.class);
+        cacheManager.getCache(UserCacheInvalidator.USER_LOOKUPS_REGION);
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(registry, cacheManager.getCache(name));
+        }
+    }
+}
@@ -2,17 +2,44 @@ package com.example.registration.config;
 
 import com.example.registration.model.ERole;
 import com.example.registration.model.Role;
+import com.example.registration.model.User;
 import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.service.EnrollmentStatistics;
+import com.example.registration.service.RoleRegistry;
+import com.example.registration.service.StudentCounter;
+import com.example.registration.service.StudentSearchIndex;
+import com.example.registration.service.TakenNames;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    @Autowired
+    private StudentCounter studentCounter;
+
+    @Autowired
+    private EnrollmentStatistics enrollmentStatistics;
+
+    @Autowired
+    private TakenNames takenNames;
+
     @Override
     public void run(String... args) throws Exception {
         // Initialize roles if they don't exist
@@ -27,5 +54,15 @@ public class DataInitializer implements CommandLineRunner {
         if (roleRepository.findByName(ERole.ROLE_ADMIN).isEmpty()) {
             roleRepository.save(new Role(ERole.ROLE_ADMIN));
         }
+
+        // Roles are constant from here on, so resolve them from memory instead of per request
+        roleRegistry.load(roleRepository.findAll());
+
+        // Build the in-memory search index and statistics once; writes keep them current afterwards
+        List<User> students = userRepository.findAllStudents();
+        studentSearchIndex.rebuild(students);
+        enrollmentStatistics.rebuild(students);
+        studentCounter.reset();
+        takenNames.rebuild();
     }
 }
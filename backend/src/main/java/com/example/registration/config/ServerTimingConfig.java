@@ -0,0 +1,31 @@
+package com.example.registration.config;
+
+import com.example.registration.metrics.ServerTimingFilter;
+import com.example.registration.metrics.ServerTimingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Server-Timing response header with per-stage durations (jwt, principal, handler, total); off unless enabled
+@Configuration
+@ConditionalOnProperty(name = "app.serverTimingEnabled", havingValue = "true")
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    // Ahead of the Spring Security chain so the JWT filter stages are captured
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ServerTimingInterceptor());
+    }
+}
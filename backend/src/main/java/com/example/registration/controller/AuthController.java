@@ -1,28 +1,40 @@
 package com.example.registration.controller;
 
-import com.example.registration.model.ERole;
 import com.example.registration.model.Role;
 import com.example.registration.model.User;
 import com.example.registration.payload.request.LoginRequest;
 import com.example.registration.payload.request.SignupRequest;
 import com.example.registration.payload.response.JwtResponse;
 import com.example.registration.payload.response.MessageResponse;
-import com.example.registration.repository.RoleRepository;
 import com.example.registration.repository.UserRepository;
 import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.security.services.AuthRateLimiter;
 import com.example.registration.security.services.UserPrincipal;
+import com.example.registration.service.EnrollmentStatistics;
+import com.example.registration.service.LastLoginTracker;
+import com.example.registration.service.RoleRegistry;
+import com.example.registration.service.StudentCounter;
+import com.example.registration.service.StudentSearchIndex;
+import com.example.registration.service.TakenNames;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,6 +42,9 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+    private static final String USERNAME_TAKEN = "Error: Username is already taken!";
+    private static final String EMAIL_TAKEN = "Error: Email is already in use!";
+
     @Autowired
     AuthenticationManager authenticationManager;
 
@@ -37,7 +52,7 @@ public class AuthController {
     UserRepository userRepository;
 
     @Autowired
-    RoleRepository roleRepository;
+    RoleRegistry roleRegistry;
 
     @Autowired
     PasswordEncoder encoder;
@@ -45,8 +60,27 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    StudentSearchIndex studentSearchIndex;
+
+    @Autowired
+    StudentCounter studentCounter;
+
+    @Autowired
+    EnrollmentStatistics enrollmentStatistics;
+
+    @Autowired
+    LastLoginTracker lastLoginTracker;
+
+    @Autowired
+    AuthRateLimiter authRateLimiter;
+
+    @Autowired
+    TakenNames takenNames;
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        authRateLimiter.check(request.getRemoteAddr(), loginRequest.getUsername());
 
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
@@ -55,6 +89,8 @@ public class AuthController {
         String jwt = jwtUtils.generateJwtToken(authentication);
 
         UserPrincipal userDetails = (UserPrincipal) authentication.getPrincipal();
+        lastLoginTracker.record(userDetails.getId());
+
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(item -> item.getAuthority())
                 .collect(Collectors.toList());
@@ -66,18 +102,44 @@ public class AuthController {
                 roles));
     }
 
+    // Username/email availability for the registration form; answered from memory unless the filter has a possible hit
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> checkAvailability(@RequestParam(required = false) String username,
+                                                                 @RequestParam(required = false) String email,
+                                                                 HttpServletRequest request) {
+        // Unauthenticated and it reveals which names are registered: throttle it like signin/signup
+        authRateLimiter.checkLookup(request.getRemoteAddr());
+        if (!StringUtils.hasText(username) && !StringUtils.hasText(email)) {
+            throw new IllegalArgumentException("Pass a username and/or an email");
+        }
+        Map<String, Object> availability = new LinkedHashMap<>();
+        if (StringUtils.hasText(username)) {
+            availability.put("username", username);
+            availability.put("usernameAvailable", !takenNames.isUsernameTaken(username));
+        }
+        if (StringUtils.hasText(email)) {
+            availability.put("email", email);
+            availability.put("emailAvailable", !takenNames.isEmailTaken(email));
+        }
+        return ResponseEntity.ok(availability);
+    }
+
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
-        if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest, HttpServletRequest request) {
+        authRateLimiter.check(request.getRemoteAddr(), signUpRequest.getUsername());
+
+        // Names the filter has never seen skip these lookups (and duplicates are turned away before BCrypt);
+        // the unique constraints settle everything else, including two concurrent signups for one name
+        if (takenNames.isUsernameTaken(signUpRequest.getUsername())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Username is already taken!"));
+                    .body(new MessageResponse(USERNAME_TAKEN));
         }
 
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+        if (takenNames.isEmailTaken(signUpRequest.getEmail())) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Email is already in use!"));
+                    .body(new MessageResponse(EMAIL_TAKEN));
         }
 
         // Create new user's account with student information
@@ -87,37 +149,45 @@ public class AuthController {
                 signUpRequest.getFullName(),
                 signUpRequest.getEnrollmentDate());
 
-        Set<String> strRoles = signUpRequest.getRole();
-        Set<Role> roles = new HashSet<>();
-
-        if (strRoles == null) {
-            Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-                    .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-            roles.add(userRole);
-        } else {
-            strRoles.forEach(role -> {
-                switch (role) {
-                    case "admin":
-                        Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(adminRole);
-                        break;
-                    case "mod":
-                        Role modRole = roleRepository.findByName(ERole.ROLE_MODERATOR)
-                                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(modRole);
-                        break;
-                    default:
-                        Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-                                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(userRole);
-                }
-            });
-        }
-
+        Set<Role> roles = roleRegistry.resolveSignupRoles(signUpRequest.getRole());
         user.setRoles(roles);
-        userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent signup (or the filter was stale): report which name was taken
+            String constraint = violatedConstraint(e);
+            if (constraint.contains("uk_users_username")) {
+                return ResponseEntity.badRequest().body(new MessageResponse(USERNAME_TAKEN));
+            }
+            if (constraint.contains("uk_users_email")) {
+                return ResponseEntity.badRequest().body(new MessageResponse(EMAIL_TAKEN));
+            }
+            // Constraints created under other names (older schemas): ask the database
+            if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+                return ResponseEntity.badRequest().body(new MessageResponse(USERNAME_TAKEN));
+            }
+            if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+                return ResponseEntity.badRequest().body(new MessageResponse(EMAIL_TAKEN));
+            }
+            throw e;
+        }
+        takenNames.add(saved.getUsername(), saved.getEmail());
+        studentSearchIndex.index(saved);
+        enrollmentStatistics.index(saved);
+        studentCounter.added(1);
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    // Name of the violated constraint as the dialect extracts it (may carry more of the message), else the driver message
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException && ((ConstraintViolationException) cause).getConstraintName() != null) {
+                return ((ConstraintViolationException) cause).getConstraintName().toLowerCase(Locale.ROOT);
+            }
+        }
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message == null ? "" : message.toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,28 +1,65 @@
 package com.example.registration.controller;
 
 import com.example.registration.model.User;
+import com.example.registration.payload.request.BulkStudentRequest;
 import com.example.registration.payload.request.UpdateUserRequest;
 import com.example.registration.security.services.UserPrincipal;
+import com.example.registration.service.EnrollmentStatistics;
+import com.example.registration.service.StudentCounter;
+import com.example.registration.service.StudentExportService;
+import com.example.registration.service.StudentFields;
+import com.example.registration.service.StudentImportService;
 import com.example.registration.service.UserStudentService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:5174"})
 @RestController
 @RequestMapping("/api/students")
 public class UserStudentController {
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final UserStudentService userStudentService;
+    private final StudentImportService studentImportService;
+    private final StudentExportService studentExportService;
+    private final StudentCounter studentCounter;
+    private final EnrollmentStatistics enrollmentStatistics;
 
-    public UserStudentController(UserStudentService userStudentService) {
+    public UserStudentController(UserStudentService userStudentService, StudentImportService studentImportService,
+                                 StudentExportService studentExportService, StudentCounter studentCounter,
+                                 EnrollmentStatistics enrollmentStatistics) {
         this.userStudentService = userStudentService;
+        this.studentImportService = studentImportService;
+        this.studentExportService = studentExportService;
+        this.studentCounter = studentCounter;
+        this.enrollmentStatistics = enrollmentStatistics;
+    }
+
+    // Answers 304 while If-None-Match still matches (checkNotModified also writes the ETag), so the body is neither
+    // built nor serialized; no-cache lets the browser keep the response but makes it revalidate on every request
+    private <T> ResponseEntity<T> conditional(WebRequest webRequest, String etag, Supplier<T> body) {
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
     }
 
     // Helper method to get current username
@@ -39,18 +76,30 @@ public class UserStudentController {
     }
 
     // Get all students (admin/moderator can see all, users see only themselves)
+    // Passing ?after=<id> and/or ?limit=<n> switches to cursor pagination
+    // ?fields=a,b,c returns only those fields (e.g. id,username,fullName,email,enrollmentDate; "all" for every field);
+    // without it the full student entities are returned
     @GetMapping
-    public ResponseEntity<List<User>> getAllStudents(Authentication authentication) {
+    public ResponseEntity<?> getAllStudents(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String fields,
+                                            Authentication authentication, WebRequest webRequest) {
+        StudentFields selection = StudentFields.parse(fields);
+        String variant = Integer.toHexString(Objects.hash(after, limit, selection.getNames(), selection.isEntity()));
         if (isAdminOrModerator(authentication)) {
+            String etag = userStudentService.studentListETag(selection) + "-" + variant;
+            if (after != null || limit != null) {
+                return conditional(webRequest, etag, () -> userStudentService.getStudentsAfter(after, limit, selection));
+            }
             // Admin and Moderator can see all students
-            List<User> students = userStudentService.getAllStudents();
-            return ResponseEntity.ok(students);
+            return conditional(webRequest, etag, () -> userStudentService.getAllStudents(selection));
         } else {
             // Regular users can only see their own profile
             try {
                 String username = getCurrentUsername(authentication);
                 User currentStudent = userStudentService.getCurrentStudent(username);
-                return ResponseEntity.ok(List.of(currentStudent));
+                return conditional(webRequest, userStudentService.studentETag(currentStudent) + "-" + variant,
+                        () -> List.of(selection.isEntity() ? currentStudent : selection.select(currentStudent)));
             } catch (Exception e) {
                 // User doesn't have student profile yet
                 return ResponseEntity.ok(List.of());
@@ -58,9 +107,29 @@ public class UserStudentController {
         }
     }
 
+    // Public student count, answered from memory so anonymous traffic never reaches the database
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> getStudentCount() {
+        return ResponseEntity.ok(Map.of("count", studentCounter.get()));
+    }
+
+    // Cohort statistics for the dashboard (per enrollment year and month, active vs inactive, per role), from memory
+    @GetMapping("/statistics")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getEnrollmentStatistics() {
+        return ResponseEntity.ok(enrollmentStatistics.snapshot());
+    }
+
+    // Recount the statistics from the database (admin only)
+    @PostMapping("/statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildEnrollmentStatistics() {
+        return ResponseEntity.ok(userStudentService.rebuildEnrollmentStatistics());
+    }
+
     // Get student by ID
     @GetMapping("/{id}")
-    public ResponseEntity<User> getStudentById(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<User> getStudentById(@PathVariable Long id, Authentication authentication, WebRequest webRequest) {
         User student;
         
         if (isAdminOrModerator(authentication)) {
@@ -77,7 +146,7 @@ public class UserStudentController {
             student = currentStudent;
         }
         
-        return ResponseEntity.ok(student);
+        return conditional(webRequest, userStudentService.studentETag(student), () -> student);
     }
 
     // Complete student profile (for new users who registered but haven't completed their student info)
@@ -163,22 +232,95 @@ public class UserStudentController {
         return ResponseEntity.ok(response);
     }
 
+    // Bulk delete students by ids or enrollment date range (admin/moderator only)
+    @DeleteMapping("/bulk")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkDeleteStudents(@RequestBody BulkStudentRequest request) {
+        return ResponseEntity.ok(userStudentService.bulkDeleteStudents(request));
+    }
+
+    // Bulk activate/deactivate students (admin/moderator only)
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkUpdateStatus(@RequestBody BulkStudentRequest request) {
+        return ResponseEntity.ok(userStudentService.bulkUpdateStatus(request));
+    }
+
+    // Bulk add/remove/set roles (admin only)
+    @PutMapping("/bulk/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkUpdateRoles(@RequestBody BulkStudentRequest request) {
+        return ResponseEntity.ok(userStudentService.bulkUpdateRoles(request));
+    }
+
+    // Bulk import students from a streamed CSV (header row first) or NDJSON body (admin only)
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> importStudents(HttpServletRequest request) throws IOException {
+        StudentImportService.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV)
+                ? StudentImportService.Format.CSV
+                : StudentImportService.Format.NDJSON;
+        Map<String, Object> summary = studentImportService.importStudents(request.getInputStream(), format);
+        // Some rows stored and some rejected: 207 with both counts and the row errors
+        HttpStatus status = ((Number) summary.get("failed")).intValue() > 0 ? HttpStatus.MULTI_STATUS : HttpStatus.OK;
+        return ResponseEntity.status(status).body(summary);
+    }
+
+    // Stream every student as CSV or NDJSON, optionally gzipped (admin/moderator only)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportStudents(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        StudentExportService.Format exportFormat;
+        String fileName;
+        MediaType contentType;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = StudentExportService.Format.CSV;
+            fileName = "students.csv";
+            contentType = TEXT_CSV;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = StudentExportService.Format.NDJSON;
+            fileName = "students.ndjson";
+            contentType = MediaType.valueOf("application/x-ndjson");
+        } else {
+            throw new IllegalArgumentException("Export format must be csv or ndjson");
+        }
+        if (gzip) {
+            fileName += ".gz";
+            contentType = MediaType.valueOf("application/gzip");
+        }
+
+        StreamingResponseBody body = output -> studentExportService.export(output, exportFormat, gzip);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     // Search students (admin/moderator only)
+    // ?after=<id> and/or ?limit=<n> return a cursor page; without them the first MAX_PAGE_LIMIT hits as a plain list
     @GetMapping("/search")
     @PreAuthorize("hasRole('MODERATOR') or hasRole('ADMIN')")
-    public ResponseEntity<List<User>> searchStudents(@RequestParam String keyword) {
-        List<User> students = userStudentService.searchStudents(keyword);
-        return ResponseEntity.ok(students);
+    public ResponseEntity<?> searchStudents(@RequestParam String keyword,
+                                            @RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String fields) {
+        StudentFields selection = StudentFields.parse(fields);
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(userStudentService.searchStudents(keyword, after, limit, selection));
+        }
+        return ResponseEntity.ok(userStudentService.searchStudents(keyword, null, UserStudentService.MAX_PAGE_LIMIT, selection)
+                .getItems());
     }
 
     // Get current user's student profile
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
-    public ResponseEntity<User> getMyProfile(Authentication authentication) {
+    public ResponseEntity<User> getMyProfile(Authentication authentication, WebRequest webRequest) {
         try {
             String username = getCurrentUsername(authentication);
             User currentStudent = userStudentService.getCurrentStudent(username);
-            return ResponseEntity.ok(currentStudent);
+            return conditional(webRequest, userStudentService.studentETag(currentStudent), () -> currentStudent);
         } catch (Exception e) {
             // User doesn't have student profile yet
             return ResponseEntity.notFound().build();
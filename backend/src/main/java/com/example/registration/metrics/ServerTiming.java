@@ -0,0 +1,63 @@
+package com.example.registration.metrics;
+
+import javax.servlet.ServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Stage durations of one request, rendered as a Server-Timing header (https://www.w3.org/TR/server-timing/).
+// Only present as a request attribute when app.serverTimingEnabled is set, so callers must null-check of().
+public class ServerTiming {
+    static final String ATTRIBUTE = ServerTiming.class.getName();
+
+    public static final String JWT = "jwt";
+    public static final String PRINCIPAL = "principal";
+    public static final String HANDLER = "handler";
+    public static final String TOTAL = "total";
+
+    private final long startedNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private long handlerStartedNanos;
+
+    public static ServerTiming of(ServletRequest request) {
+        return (ServerTiming) request.getAttribute(ATTRIBUTE);
+    }
+
+    // Adds to the stage, so a stage entered twice reports its total
+    public synchronized void record(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    synchronized void handlerStarted() {
+        handlerStartedNanos = System.nanoTime();
+    }
+
+    synchronized void handlerCompleted() {
+        if (handlerStartedNanos != 0) {
+            record(HANDLER, System.nanoTime() - handlerStartedNanos);
+            handlerStartedNanos = 0;
+        }
+    }
+
+    // Stages so far plus the total; a handler still running (response committed mid-handler) counts up to now
+    synchronized Map<String, Long> snapshot() {
+        long now = System.nanoTime();
+        Map<String, Long> snapshot = new LinkedHashMap<>(stageNanos);
+        if (handlerStartedNanos != 0) {
+            snapshot.merge(HANDLER, now - handlerStartedNanos, Long::sum);
+        }
+        snapshot.put(TOTAL, now - startedNanos);
+        return snapshot;
+    }
+
+    static String headerValue(Map<String, Long> stages) {
+        StringBuilder header = new StringBuilder();
+        stages.forEach((stage, nanos) -> {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(stage).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+        });
+        return header.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.registration.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Outermost filter: starts the request's ServerTiming, adds the Server-Timing header just before the response
+// commits and feeds every stage into the http.server.stage timer histogram
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private static final String HEADER = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServerTimingFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ServerTiming timing = new ServerTiming();
+        request.setAttribute(ServerTiming.ATTRIBUTE, timing);
+        TimingResponseWrapper timedResponse = new TimingResponseWrapper(response, timing);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            // Bodiless responses may not have committed yet
+            if (!response.isCommitted()) {
+                timedResponse.addTimingHeader();
+            }
+            timing.snapshot().forEach((stage, nanos) -> timer(stage).record(nanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private Timer timer(String stage) {
+        return timers.computeIfAbsent(stage, name -> Timer.builder("http.server.stage")
+                .description("Time spent per request stage, as reported in Server-Timing")
+                .tag("stage", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static class TimingResponseWrapper extends OnCommittedResponseWrapper {
+        private final ServerTiming timing;
+        private boolean headerAdded;
+
+        TimingResponseWrapper(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            addTimingHeader();
+        }
+
+        void addTimingHeader() {
+            if (!headerAdded) {
+                headerAdded = true;
+                setHeader(HEADER, ServerTiming.headerValue(timing.snapshot()));
+            }
+        }
+    }
+}
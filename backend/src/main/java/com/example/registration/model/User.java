@@ -3,8 +3,13 @@ package com.example.registration.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -20,10 +25,14 @@ import java.util.Set;
 @Entity
 @Table(name = "users", 
        uniqueConstraints = {
-           @UniqueConstraint(columnNames = "username"),
-           @UniqueConstraint(columnNames = "email") 
+           @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
+           @UniqueConstraint(name = "uk_users_email", columnNames = "email")
        })
-@Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Getter
+@Setter
+@ToString(exclude = {"password", "roles"})
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
@@ -33,13 +42,13 @@ public class User {
 
     @NotBlank
     @Size(max = 20)
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
     @NotBlank
     @Size(max = 50)
     @Email
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @NotBlank
@@ -60,7 +69,10 @@ public class User {
     @Column(name = "enrollment_date", nullable = false)
     private LocalDate enrollmentDate;
 
+    // Uninitialized role sets of a page (up to 500 students + 1) are loaded together in one query
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
+    @BatchSize(size = 512)
     @JoinTable(name = "user_roles",
                joinColumns = @JoinColumn(name = "user_id"),
                inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -102,4 +114,23 @@ public class User {
         this.fullName = fullName;
         this.enrollmentDate = enrollmentDate;
     }
+
+    // Identity is the database id, so equality never initializes the lazy roles collection
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof User)) {
+            return false;
+        }
+        User other = (User) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    // Constant per class so the hash does not change when a new user gets its id on insert
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.registration.payload.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Selects students either by id list or by enrollment date range (inclusive) for set-based bulk operations
+@Data
+public class BulkStudentRequest {
+    private List<Long> ids;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate enrolledFrom;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate enrolledTo;
+
+    private Boolean active; // Target status for bulk status updates
+
+    private List<String> roles; // Role names for bulk role updates, e.g. "MODERATOR" or "ROLE_MODERATOR"
+    private String roleMode; // "add" (default), "remove" or "set"
+}
@@ -0,0 +1,40 @@
+package com.example.registration.payload.response;
+
+import java.util.List;
+
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private Long nextCursor;
+    private int limit;
+
+    public CursorPageResponse(List<T> items, Long nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    // Id to pass as ?after= for the next page, null when this is the last page
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -1,15 +1,139 @@
 package com.example.registration.repository;
 
+import com.example.registration.model.ERole;
 import com.example.registration.model.User;
+import com.example.registration.payload.response.StudentSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    // Served from the second-level query cache ("user-lookups"); invalidated by any write to users
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+                 @QueryHint(name = "org.hibernate.cacheRegion", value = "user-lookups")})
     Optional<User> findByUsername(String username);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+                 @QueryHint(name = "org.hibernate.cacheRegion", value = "user-lookups")})
     Optional<User> findByEmail(String email);
+
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+    @EntityGraph(attributePaths = "roles")
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Students are users that have completed their student profile.
+    // Roles are fetched in the same query; distinct folds the joined rows in memory only.
+    @EntityGraph(attributePaths = "roles")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("select distinct u from User u where u.fullName is not null and u.enrollmentDate is not null order by u.id desc")
+    List<User> findAllStudents();
+
+    @EntityGraph(attributePaths = "roles")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("select distinct u from User u where u.id in :ids")
+    List<User> findWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Summary projection: only the five summary columns are selected
+    @Query("select new com.example.registration.payload.response.StudentSummary(u.id, u.username, u.fullName, u.email, u.enrollmentDate) " +
+           "from User u where u.fullName is not null and u.enrollmentDate is not null order by u.id desc")
+    List<StudentSummary> findStudentSummaries();
+
+    @Query("select new com.example.registration.payload.response.StudentSummary(u.id, u.username, u.fullName, u.email, u.enrollmentDate) " +
+           "from User u where u.fullName is not null and u.enrollmentDate is not null and u.id < :after order by u.id desc")
+    List<StudentSummary> findStudentSummariesBefore(@Param("after") Long after, Pageable pageable);
+
+    @Query("select new com.example.registration.payload.response.StudentSummary(u.id, u.username, u.fullName, u.email, u.enrollmentDate) " +
+           "from User u where u.fullName is not null and u.enrollmentDate is not null and u.id in :ids order by u.id desc")
+    List<StudentSummary> findStudentSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One aggregate row that changes whenever the student list does (insert, delete, update, login); backs the list ETag,
+    // which uses maxLastLogin only when the selection returns lastLogin
+    @Query("select count(u) as count, max(u.id) as maxId, max(u.updatedAt) as maxUpdatedAt, max(u.lastLogin) as maxLastLogin " +
+           "from User u where u.fullName is not null and u.enrollmentDate is not null")
+    StudentsVersion findStudentsVersion();
+
+    @Query(value = "select u from User u where u.fullName is not null and u.enrollmentDate is not null",
+           countQuery = "select count(u) from User u where u.fullName is not null and u.enrollmentDate is not null")
+    Page<User> findAllStudents(Pageable pageable);
+
+    // Keyset pagination: walks the primary key index downwards from the cursor
+    @Query("select u from User u where u.fullName is not null and u.enrollmentDate is not null " +
+           "and u.id < :after order by u.id desc")
+    List<User> findStudentsBefore(@Param("after") Long after, Pageable pageable);
+
+    @Query("select count(u) from User u where u.fullName is not null and u.enrollmentDate is not null")
+    long countStudents();
+
+    @Query("select count(u) from User u where u.fullName is not null and u.enrollmentDate is not null and u.id in :ids")
+    long countStudentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.id from User u where u.fullName is not null and u.enrollmentDate is not null and u.id in :ids")
+    List<Long> findStudentIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.id from User u where u.fullName is not null and u.enrollmentDate is not null " +
+           "and u.enrollmentDate between :from and :to")
+    List<Long> findStudentIdsEnrolledBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select u.id from User u join u.roles r where r.name = :role and u.id in :ids")
+    List<Long> findIdsWithRoleByIdIn(@Param("ids") Collection<Long> ids, @Param("role") ERole role);
+
+    // Set-based bulk statements; they bypass the persistence context, so it is cleared afterwards
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.isActive = :active, u.updatedAt = :now where u.id in :ids")
+    int updateActive(@Param("ids") Collection<Long> ids, @Param("active") Boolean active, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.updatedAt = :now where u.id in :ids")
+    int touch(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from User u where u.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from user_roles where user_id in (:ids)", nativeQuery = true)
+    int deleteRoles(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from user_roles where user_id in (:ids) and role_id in (:roleIds)", nativeQuery = true)
+    int deleteRoles(@Param("ids") Collection<Long> ids, @Param("roleIds") Collection<Integer> roleIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "insert into user_roles (user_id, role_id) " +
+                   "select u.id, r.id from users u cross join roles r " +
+                   "where u.id in (:ids) and r.id in (:roleIds) " +
+                   "and not exists (select 1 from user_roles ur where ur.user_id = u.id and ur.role_id = r.id)",
+           nativeQuery = true)
+    int insertRoles(@Param("ids") Collection<Long> ids, @Param("roleIds") Collection<Integer> roleIds);
+
+    interface StudentsVersion {
+        Long getCount();
+
+        Long getMaxId();
+
+        LocalDateTime getMaxUpdatedAt();
+
+        LocalDateTime getMaxLastLogin();
+    }
 }
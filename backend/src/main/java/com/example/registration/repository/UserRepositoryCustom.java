@@ -0,0 +1,14 @@
+package com.example.registration.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Student queries whose select list is chosen at runtime (sparse fieldsets); "roles" adds one query over user_roles
+public interface UserRepositoryCustom {
+
+    // Students below the id cursor, newest first; a null cursor starts from the top, limit 0 means no limit
+    List<Map<String, Object>> findStudentColumns(List<String> fields, Long before, int limit);
+
+    List<Map<String, Object>> findStudentColumnsByIdIn(List<String> fields, Collection<Long> ids);
+}
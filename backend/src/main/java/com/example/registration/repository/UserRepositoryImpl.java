@@ -0,0 +1,110 @@
+package com.example.registration.repository;
+
+import com.example.registration.model.Role;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Builds "select u.a, u.b ... from User u" for the requested columns only; names are checked against
+// the scalar User attributes, so nothing from the request reaches the query text unvalidated.
+// Roles live in another table: they are attached with one more query over user_roles instead of loading entities.
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    private static final String ROLES = "roles";
+    private static final Set<String> COLUMNS = Set.of(
+            "id", "username", "email", "fullName", "enrollmentDate", "createdAt", "updatedAt", "lastLogin", "isActive");
+    private static final String STUDENTS = " from User u where u.fullName is not null and u.enrollmentDate is not null";
+    private static final String USER_ROLES = "select u.id, r from User u join u.roles r where ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findStudentColumns(List<String> fields, Long before, int limit) {
+        String jpql = select(fields) + STUDENTS + (before != null ? " and u.id < :before" : "") + " order by u.id desc";
+        Query query = entityManager.createQuery(jpql);
+        if (before != null) {
+            query.setParameter("before", before);
+        }
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        List<Map<String, Object>> rows = rows(fields, query.getResultList());
+        if (fields.contains(ROLES) && !rows.isEmpty()) {
+            // Rows are ordered by id, so their id range covers exactly this page (or every student without a limit)
+            attachRoles(rows, entityManager.createQuery(USER_ROLES + "u.id between :lowest and :highest")
+                    .setParameter("lowest", rows.get(rows.size() - 1).get("id"))
+                    .setParameter("highest", rows.get(0).get("id")));
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, Object>> findStudentColumnsByIdIn(List<String> fields, Collection<Long> ids) {
+        String jpql = select(fields) + STUDENTS + " and u.id in :ids order by u.id desc";
+        List<Map<String, Object>> rows = rows(fields, entityManager.createQuery(jpql)
+                .setParameter("ids", ids)
+                .getResultList());
+        if (fields.contains(ROLES) && !rows.isEmpty()) {
+            attachRoles(rows, entityManager.createQuery(USER_ROLES + "u.id in :ids").setParameter("ids", ids));
+        }
+        return rows;
+    }
+
+    // The roles column needs the id to match user_roles rows back to students
+    private static String select(List<String> fields) {
+        if (fields.contains(ROLES) && !fields.contains("id")) {
+            throw new IllegalArgumentException("Selecting roles requires the id column");
+        }
+        StringBuilder select = new StringBuilder("select ");
+        boolean first = true;
+        for (String field : fields) {
+            if (field.equals(ROLES)) {
+                continue;
+            }
+            if (!COLUMNS.contains(field)) {
+                throw new IllegalArgumentException("Not a student column: " + field);
+            }
+            select.append(first ? "" : ", ").append("u.").append(field);
+            first = false;
+        }
+        return select.toString();
+    }
+
+    // A single selected column comes back as the bare value, several as Object[]; roles start out empty
+    private static List<Map<String, Object>> rows(List<String> fields, List<?> results) {
+        List<Map<String, Object>> rows = new ArrayList<>(results.size());
+        for (Object result : results) {
+            Object[] values = result instanceof Object[] ? (Object[]) result : new Object[] {result};
+            Map<String, Object> row = new LinkedHashMap<>();
+            int column = 0;
+            for (String field : fields) {
+                row.put(field, field.equals(ROLES) ? new HashSet<Role>() : values[column++]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void attachRoles(List<Map<String, Object>> rows, Query userRoles) {
+        Map<Object, Set<Role>> rolesById = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            rolesById.put(row.get("id"), (Set<Role>) row.get(ROLES));
+        }
+        for (Object[] userRole : (List<Object[]>) userRoles.getResultList()) {
+            Set<Role> roles = rolesById.get(userRole[0]);
+            if (roles != null) {
+                roles.add((Role) userRole[1]);
+            }
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.example.registration.security;
 
 import com.example.registration.security.jwt.AuthEntryPointJwt;
 import com.example.registration.security.jwt.AuthTokenFilter;
+import com.example.registration.security.services.BoundedPasswordEncoder;
 import com.example.registration.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +18,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -26,12 +29,29 @@ import java.util.Arrays;
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(WebSecurityConfig.class);
+
     @Autowired
     UserDetailsServiceImpl userDetailsService;
 
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.bcryptStrength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.bcryptTargetMs:100}")
+    private long bcryptTargetMs;
+
+    @Value("${app.bcryptThreads:0}")
+    private int bcryptThreads;
+
+    @Value("${app.bcryptQueueCapacity:64}")
+    private int bcryptQueueCapacity;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -49,8 +69,18 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        // A fixed strength wins; 0 means pick the cost for the target time on this hardware (never below the default 10).
+        // The calibrated cost depends on the host and on its load at boot, so the prod profile requires a fixed one.
+        int strength = bcryptStrength;
+        if (strength <= 0) {
+            strength = BoundedPasswordEncoder.calibrateStrength(bcryptTargetMs, 10, 16);
+            logger.warn("BCrypt cost {} was calibrated at startup; set app.bcryptStrength={} to keep it stable across hosts and restarts",
+                    strength, strength);
+        }
+        // Half the cores by default, so a burst of hashing cannot take every core away from request handling
+        int threads = bcryptThreads > 0 ? bcryptThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(strength, threads, bcryptQueueCapacity, meterRegistry);
     }
 
     @Bean
@@ -73,6 +103,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
             .authorizeRequests()
                 .antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/h2-console/**").permitAll()
+                .antMatchers("/actuator/health").permitAll() // Liveness/readiness probes
+                .antMatchers("/actuator/prometheus").hasRole("ADMIN") // Metrics reveal traffic, users and cache contents
                 .antMatchers("/api/students/count").permitAll() // Public endpoint for statistics
                 .anyRequest().authenticated();
 
@@ -1,6 +1,8 @@
 package com.example.registration.security.jwt;
 
-import com.example.registration.security.services.UserDetailsServiceImpl;
+import com.example.registration.metrics.ServerTiming;
+import com.example.registration.security.services.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,19 +24,32 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private UserPrincipalCache userPrincipalCache;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
+        ServerTiming timing = ServerTiming.of(request);
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            long started = System.nanoTime();
+            Claims claims = jwt != null ? jwtUtils.parseVerifiedClaims(jwt) : null;
+            if (timing != null && jwt != null) {
+                timing.record(ServerTiming.JWT, System.nanoTime() - started);
+            }
+            if (claims != null) {
+                String username = claims.getSubject();
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                started = System.nanoTime();
+                UserDetails userDetails = jwtUtils.principalFromClaims(claims);
+                if (userDetails == null) {
+                    userDetails = userPrincipalCache.get(username);
+                }
+                if (timing != null) {
+                    timing.record(ServerTiming.PRINCIPAL, System.nanoTime() - started);
+                }
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,68 +1,212 @@
 package com.example.registration.security.jwt;
 
+import com.example.registration.security.services.TokenVersionRegistry;
 import com.example.registration.security.services.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
-public class JwtUtils {
+public class JwtUtils implements MeterBinder {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String USER_ID = "uid";
+    private static final String EMAIL = "email";
+    private static final String ROLES = "roles";
+    private static final String VERSION = "ver";
+
     @Value("${app.jwtSecret:mySecretKey}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtCacheMaxSize:10000}")
+    private long jwtCacheMaxSize;
+
+    // Embed id, email, roles and token version in new tokens so the filter can skip the user lookup
+    @Value("${app.jwtStatelessClaims:false}")
+    private boolean statelessClaims;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    // Token versions are not persisted; claims of tokens issued before this instance started are not trusted alone
+    private final long startedAtSeconds = System.currentTimeMillis() / 1000;
+
     private SecretKey key;
 
+    private JwtParser jwtParser;
+
+    // Claims of tokens whose signature was already checked, keyed by token digest and kept until the token expires
+    private Cache<String, Claims> verifiedTokens;
+
+    // Set once Spring Boot binds the meters; failures before that are only logged
+    private volatile MeterRegistry meterRegistry;
+
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+                        long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt.verifiedTokens");
+        this.meterRegistry = registry;
     }
 
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs));
+        if (statelessClaims) {
+            builder.claim(USER_ID, userPrincipal.getId())
+                    .claim(EMAIL, userPrincipal.getEmail())
+                    .claim(ROLES, userPrincipal.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .collect(Collectors.toList()))
+                    .claim(VERSION, tokenVersionRegistry.current(userPrincipal.getId()));
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS512).compact();
+    }
+
+    // Principal rebuilt from the token alone, or null when the token does not carry trusted claims
+    // and the caller has to load the user
+    public UserPrincipal principalFromClaims(Claims claims) {
+        if (!statelessClaims || !isVersioned(claims)) {
+            return null;
+        }
+        List<?> roles = claims.get(ROLES, List.class);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toList());
+        return new UserPrincipal(claims.get(USER_ID, Long.class), claims.getSubject(), claims.get(EMAIL, String.class),
+                null, authorities);
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseVerifiedClaims(authToken) != null;
+    }
+
+    // Verify the token once and return its claims, or null when it is not valid
+    public Claims parseVerifiedClaims(String authToken) {
+        String digest = digest(authToken);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return isRevoked(cached) ? null : cached;
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            return isRevoked(claims) ? null : claims;
+        } catch (SignatureException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+            countFailure("signature");
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
+            countFailure("malformed");
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
+            countFailure("expired");
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+            countFailure("unsupported");
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+            countFailure("empty");
+        }
+        return null;
+    }
+
+    // A versioned token is revoked once the user's version moved past it (role change, password reset, delete)
+    private boolean isRevoked(Claims claims) {
+        if (!isVersioned(claims)) {
+            return false;
+        }
+        Long userId = claims.get(USER_ID, Long.class);
+        if (claims.get(VERSION, Integer.class) == tokenVersionRegistry.current(userId)) {
+            return false;
+        }
+        logger.debug("JWT token of user {} was revoked", userId);
+        countFailure("revoked");
+        return true;
+    }
+
+    private boolean isVersioned(Claims claims) {
+        return claims.get(VERSION) != null && claims.getIssuedAt() != null
+                && claims.getIssuedAt().getTime() / 1000 >= startedAtSeconds;
+    }
+
+    private void countFailure(String reason) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registry.counter("jwt.validation.failures", "reason", reason).increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return false;
     }
 }
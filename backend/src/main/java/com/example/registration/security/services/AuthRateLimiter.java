@@ -0,0 +1,123 @@
+package com.example.registration.security.services;
+
+import com.example.registration.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token buckets for /api/auth/signin, /signup and /availability, one per client IP and one per username, checked before any
+// database or BCrypt work. Each bucket is a single AtomicLong updated by CAS (GCRA: the stored value is the time at
+// which the bucket is full again); buckets live in a size-bounded Caffeine map and expire once idle long enough to refill.
+@Component
+public class AuthRateLimiter implements MeterBinder {
+    private final boolean enabled;
+    private final Limit ipLimit;
+    private final Limit usernameLimit;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+    private volatile MeterRegistry meterRegistry;
+
+    @Autowired
+    public AuthRateLimiter(@Value("${app.authRateLimitEnabled:true}") boolean enabled,
+                           @Value("${app.authIpPerMinute:60}") int ipPerMinute,
+                           @Value("${app.authIpBurst:20}") int ipBurst,
+                           @Value("${app.authUsernamePerMinute:10}") int usernamePerMinute,
+                           @Value("${app.authUsernameBurst:5}") int usernameBurst,
+                           @Value("${app.authRateLimitMaxKeys:100000}") long maxKeys) {
+        this(enabled, ipPerMinute, ipBurst, usernamePerMinute, usernameBurst, maxKeys, System::nanoTime);
+    }
+
+    // The clock is a parameter so tests can step time instead of sleeping
+    AuthRateLimiter(boolean enabled, int ipPerMinute, int ipBurst, int usernamePerMinute, int usernameBurst, long maxKeys,
+                    LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.ipLimit = new Limit(ipPerMinute, ipBurst);
+        this.usernameLimit = new Limit(usernamePerMinute, usernameBurst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(ipLimit.refillNanos, usernameLimit.refillNanos)))
+                .recordStats()
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, "authRateLimitBuckets");
+        this.meterRegistry = registry;
+    }
+
+    // Throws RateLimitExceededException when either the client's or the username's bucket is empty
+    public void check(String clientIp, String username) {
+        if (!enabled) {
+            return;
+        }
+        acquire("ip", clientIp, ipLimit);
+        if (username != null && !username.isBlank()) {
+            acquire("username", username, usernameLimit);
+        }
+    }
+
+    // Per-IP limit for /api/auth/availability; a bucket of its own so a registration form checking names as the
+    // user types does not use up that client's signin/signup allowance
+    public void checkLookup(String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        acquire("lookup", clientIp, ipLimit);
+    }
+
+    private void acquire(String type, String key, Limit limit) {
+        AtomicLong bucket = buckets.get(bucketKey(type, key), ignored -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long fullAt = bucket.get();
+            long start = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+            long wait = start - now - limit.toleranceNanos;
+            if (wait > 0) {
+                reject(type, wait);
+            }
+            if (bucket.compareAndSet(fullAt, start + limit.intervalNanos)) {
+                return;
+            }
+        }
+    }
+
+    // Trimmed and case-folded, so " Alice " and "alice" (or an IPv6 address in either hex case) share one bucket
+    static String bucketKey(String type, String value) {
+        return type + ":" + (value == null ? "" : value.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private void reject(String type, long waitNanos) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registry.counter("auth.ratelimit.rejected", "key", type).increment();
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        throw new RateLimitExceededException("Too many authentication attempts, try again in " + retryAfter + " seconds", retryAfter);
+    }
+
+    private static final class Limit {
+        // Time to earn one token, slack that allows a burst, and time for an empty bucket to fill up
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final long refillNanos;
+
+        private Limit(int perMinute, int burst) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+            this.refillNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.registration.security.services;
+
+import com.example.registration.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt encoder that hashes and verifies on a dedicated, bounded pool.
+// At most `threads` hashes run at once and at most `queueCapacity` wait; beyond that callers get ServiceBusyException
+// instead of piling up on the servlet connector threads.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int strength;
+    private final int queueCapacity;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, MeterRegistry registry) {
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.delegate = new BCryptPasswordEncoder(strength);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // Hash time per operation, time spent queued for a pool thread, and pool saturation
+        this.encodeTimer = Timer.builder("bcrypt.hash").tag("operation", "encode").publishPercentileHistogram().register(registry);
+        this.matchesTimer = Timer.builder("bcrypt.hash").tag("operation", "matches").publishPercentileHistogram().register(registry);
+        this.queueWaitTimer = Timer.builder("bcrypt.queue.wait").publishPercentileHistogram().register(registry);
+        Gauge.builder("bcrypt.queue.depth", this, BoundedPasswordEncoder::getQueueDepth).register(registry);
+        Gauge.builder("bcrypt.active", this, BoundedPasswordEncoder::getActiveCount).register(registry);
+        Gauge.builder("bcrypt.strength", this, BoundedPasswordEncoder::getStrength).register(registry);
+    }
+
+    // Highest cost between min and max whose single hash stays within the target time on this machine
+    public static int calibrateStrength(long targetMillis, int minStrength, int maxStrength) {
+        new BCryptPasswordEncoder(4).encode("warm-up");
+
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long started = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode("calibration");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            chosen = strength;
+        }
+        logger.info("BCrypt cost calibrated to {} for a {} ms target", chosen, targetMillis);
+        return chosen;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    // Queue a hash without waiting for it, so a bulk caller can keep the pool busy from one thread.
+    // Throws ServiceBusyException right away when the queue is full.
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        Callable<String> task = timed(() -> delegate.encode(rawPassword), encodeTimer);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Password hashing failed", e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many password operations in progress, please retry shortly", e);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    // True for hashes made with a lower cost; DaoAuthenticationProvider then rehashes them on successful login
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task, Timer hashTimer) {
+        try {
+            return executor.submit(timed(task, hashTimer)).get();
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many password operations in progress, please retry shortly", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Records the queue wait from the moment of wrapping, i.e. submission, and the hash time itself
+    private <T> Callable<T> timed(Callable<T> task, Timer hashTimer) {
+        long submitted = System.nanoTime();
+        return () -> {
+            long started = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                queueWaitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
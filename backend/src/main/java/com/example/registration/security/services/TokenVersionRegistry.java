@@ -0,0 +1,38 @@
+package com.example.registration.security.services;
+
+import com.example.registration.util.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-user token versions for tokens that carry their own claims (app.jwtStatelessClaims): such a token is only
+// accepted while its "ver" claim equals the user's current version. Only revoked users have an entry, everyone
+// else is at version 0. The table lives in memory, so JwtUtils checks it only for tokens issued since startup.
+@Component
+public class TokenVersionRegistry {
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public int current(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    public void revoke(Long userId) {
+        revoke(List.of(userId));
+    }
+
+    // Bump now and again after commit, so a token issued while the change is still uncommitted
+    // (old roles or credentials, new version) is revoked as well
+    public void revoke(Collection<Long> userIds) {
+        bump(userIds);
+        AfterCommit.run(() -> bump(userIds));
+    }
+
+    private void bump(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            versions.merge(userId, 1, Integer::sum);
+        }
+    }
+}
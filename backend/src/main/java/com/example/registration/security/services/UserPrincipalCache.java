@@ -0,0 +1,78 @@
+package com.example.registration.security.services;
+
+import com.example.registration.util.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Size- and TTL-bounded cache of authenticated principals, so the JWT filter does not hit the database per request
+@Component
+public class UserPrincipalCache implements MeterBinder {
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Cache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(UserDetailsServiceImpl userDetailsService,
+                              @Value("${app.principalCacheMaxSize:10000}") long maxSize,
+                              @Value("${app.principalCacheTtlSeconds:300}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "principals");
+    }
+
+    // Cached principal for the username, loaded through UserDetailsServiceImpl on a miss
+    public UserPrincipal get(String username) {
+        return cache.get(username, key -> (UserPrincipal) userDetailsService.loadUserByUsername(key));
+    }
+
+    // Evict now and again after commit, so a concurrent miss cannot re-cache the pre-commit row
+    public void evict(String... usernames) {
+        for (String username : usernames) {
+            if (username != null) {
+                cache.invalidate(username);
+            }
+        }
+        AfterCommit.run(() -> {
+            for (String username : usernames) {
+                if (username != null) {
+                    cache.invalidate(username);
+                }
+            }
+        });
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        AfterCommit.run(cache::invalidateAll);
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
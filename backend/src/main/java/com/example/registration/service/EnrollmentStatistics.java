@@ -0,0 +1,169 @@
+package com.example.registration.service;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+import com.example.registration.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// In-memory cohort histograms for the admin dashboard: students per enrollment month (and year), active vs
+// inactive and per role. The last counted state of every student is kept, so a write moves only its own
+// contribution; like the search index it is built at startup and changed after each commit.
+@Component
+public class EnrollmentStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentStatistics.class);
+
+    private final Map<Long, Entry> students = new HashMap<>();
+    private final Map<YearMonth, Long> byMonth = new TreeMap<>();
+    private final Map<ERole, Long> byRole = new EnumMap<>(ERole.class);
+    private long active;
+
+    // Replace everything, used at startup and by the rebuild endpoint
+    public synchronized void rebuild(Collection<User> loaded) {
+        students.clear();
+        byMonth.clear();
+        byRole.clear();
+        active = 0;
+        for (User student : loaded) {
+            Entry entry = entryOf(student);
+            if (entry != null) {
+                put(student.getId(), entry);
+            }
+        }
+        logger.info("Enrollment statistics built for {} students over {} months", students.size(), byMonth.size());
+    }
+
+    // Count (or re-count) a saved user once the surrounding transaction commits
+    public void index(User user) {
+        Long id = user.getId();
+        Entry entry = entryOf(user);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                delete(id);
+                if (entry != null) {
+                    put(id, entry);
+                }
+            }
+        });
+    }
+
+    public void remove(Long id) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                delete(id);
+            }
+        });
+    }
+
+    public void updateActive(Collection<Long> ids, boolean isActive) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Long id : ids) {
+                    Entry entry = delete(id);
+                    if (entry != null) {
+                        put(id, new Entry(entry.month, isActive, entry.roles));
+                    }
+                }
+            }
+        });
+    }
+
+    // Mirror a bulk role change ("add", "remove" or "set") without reloading the students
+    public void updateRoles(Collection<Long> ids, String mode, Set<ERole> changed) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Long id : ids) {
+                    Entry entry = delete(id);
+                    if (entry == null) {
+                        continue;
+                    }
+                    Set<ERole> roles = mode.equals("set") ? EnumSet.noneOf(ERole.class) : EnumSet.copyOf(entry.roles);
+                    if (mode.equals("remove")) {
+                        roles.removeAll(changed);
+                    } else {
+                        roles.addAll(changed);
+                    }
+                    put(id, new Entry(entry.month, entry.active, roles));
+                }
+            }
+        });
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Long> years = new TreeMap<>();
+        Map<String, Long> months = new LinkedHashMap<>();
+        byMonth.forEach((month, count) -> {
+            years.merge(String.valueOf(month.getYear()), count, Long::sum);
+            months.put(month.toString(), count);
+        });
+        Map<String, Long> roles = new LinkedHashMap<>();
+        for (ERole role : ERole.values()) {
+            roles.put(role.name(), byRole.getOrDefault(role, 0L));
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("total", (long) students.size());
+        statistics.put("active", active);
+        statistics.put("inactive", students.size() - active);
+        statistics.put("byYear", years);
+        statistics.put("byMonth", months);
+        statistics.put("byRole", roles);
+        return statistics;
+    }
+
+    private void put(Long id, Entry entry) {
+        students.put(id, entry);
+        byMonth.merge(entry.month, 1L, Long::sum);
+        entry.roles.forEach(role -> byRole.merge(role, 1L, Long::sum));
+        if (entry.active) {
+            active++;
+        }
+    }
+
+    private Entry delete(Long id) {
+        Entry entry = students.remove(id);
+        if (entry != null) {
+            byMonth.computeIfPresent(entry.month, (month, count) -> count == 1 ? null : count - 1);
+            entry.roles.forEach(role -> byRole.computeIfPresent(role, (name, count) -> count == 1 ? null : count - 1));
+            if (entry.active) {
+                active--;
+            }
+        }
+        return entry;
+    }
+
+    private static Entry entryOf(User user) {
+        if (user.getFullName() == null || user.getEnrollmentDate() == null) {
+            return null;
+        }
+        Set<ERole> roles = EnumSet.noneOf(ERole.class);
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+        }
+        return new Entry(YearMonth.from(user.getEnrollmentDate()), Boolean.TRUE.equals(user.getIsActive()), roles);
+    }
+
+    private static final class Entry {
+        private final YearMonth month;
+        private final boolean active;
+        private final Set<ERole> roles;
+
+        private Entry(YearMonth month, boolean active, Set<ERole> roles) {
+            this.month = month;
+            this.active = active;
+            this.roles = roles;
+        }
+    }
+}
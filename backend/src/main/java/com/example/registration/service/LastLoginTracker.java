@@ -0,0 +1,76 @@
+package com.example.registration.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Write-behind buffer for users.last_login: signins only touch memory, a background flush writes
+// the latest timestamp per user with one batched UPDATE every few seconds and on shutdown
+@Component
+public class LastLoginTracker {
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginTracker.class);
+
+    private static final String UPDATE_LAST_LOGIN = "update users set last_login = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginTracker(JdbcTemplate jdbcTemplate, UserCacheInvalidator userCacheInvalidator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCacheInvalidator = userCacheInvalidator;
+    }
+
+    public void record(Long userId) {
+        pending.merge(userId, LocalDateTime.now(), LastLoginTracker::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${app.lastLoginFlushMs:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        List<Long> userIds = new ArrayList<>(pending.size());
+        for (Long userId : pending.keySet()) {
+            LocalDateTime lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                batch.add(new Object[] {Timestamp.valueOf(lastLogin), userId});
+                userIds.add(userId);
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, batch);
+            userCacheInvalidator.evictUsers(userIds);
+            logger.debug("Flushed last login for {} users", batch.size());
+        } catch (DataAccessException e) {
+            // Keep the timestamps for the next flush unless a newer signin already replaced them
+            logger.warn("Could not flush last login for {} users: {}", batch.size(), e.getMessage());
+            for (Object[] row : batch) {
+                pending.merge((Long) row[1], ((Timestamp) row[0]).toLocalDateTime(), LastLoginTracker::latest);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
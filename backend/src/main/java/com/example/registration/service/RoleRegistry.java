@@ -0,0 +1,58 @@
+package com.example.registration.service;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Immutable ERole -> Role lookup loaded once by DataInitializer; roles never change after startup
+@Component
+public class RoleRegistry {
+    private volatile Map<ERole, Role> roles = Collections.unmodifiableMap(new EnumMap<>(ERole.class));
+
+    public void load(Collection<Role> loaded) {
+        Map<ERole, Role> byName = new EnumMap<>(ERole.class);
+        for (Role role : loaded) {
+            byName.put(role.getName(), role);
+        }
+        this.roles = Collections.unmodifiableMap(byName);
+    }
+
+    public Optional<Role> find(ERole name) {
+        return Optional.ofNullable(roles.get(name));
+    }
+
+    public Role get(ERole name) {
+        return find(name).orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+    }
+
+    // Map signup role names ("admin", "mod", anything else = user) to roles; null means ROLE_USER
+    public Set<Role> resolveSignupRoles(Set<String> strRoles) {
+        Set<Role> resolved = new HashSet<>();
+
+        if (strRoles == null) {
+            resolved.add(get(ERole.ROLE_USER));
+        } else {
+            strRoles.forEach(role -> {
+                switch (role) {
+                    case "admin":
+                        resolved.add(get(ERole.ROLE_ADMIN));
+                        break;
+                    case "mod":
+                        resolved.add(get(ERole.ROLE_MODERATOR));
+                        break;
+                    default:
+                        resolved.add(get(ERole.ROLE_USER));
+                }
+            });
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.registration.service;
+
+import com.example.registration.repository.UserRepository;
+import com.example.registration.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Number of students served from memory for the public /api/students/count endpoint.
+// Seeded at startup, adjusted once each write commits, and reconciled with the database periodically.
+@Component
+public class StudentCounter {
+    private static final Logger logger = LoggerFactory.getLogger(StudentCounter.class);
+
+    private final UserRepository userRepository;
+    private final AtomicLong count = new AtomicLong();
+
+    public StudentCounter(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    public void added(long students) {
+        AfterCommit.run(() -> count.addAndGet(students));
+    }
+
+    public void removed(long students) {
+        AfterCommit.run(() -> count.addAndGet(-students));
+    }
+
+    // Replace the count with the database's; skipped when a write lands while counting, the next round catches up
+    @Scheduled(initialDelayString = "${app.studentCountReconcileMs:300000}", fixedDelayString = "${app.studentCountReconcileMs:300000}")
+    public void reconcile() {
+        long expected = count.get();
+        long actual = userRepository.countStudents();
+        if (actual != expected && count.compareAndSet(expected, actual)) {
+            logger.info("Student count corrected from {} to {}", expected, actual);
+        }
+    }
+
+    // Used once at startup and after bulk loads that bypass the write paths
+    public void reset() {
+        count.set(userRepository.countStudents());
+    }
+}
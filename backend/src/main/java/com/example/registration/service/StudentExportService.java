@@ -0,0 +1,151 @@
+package com.example.registration.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+// Writes all students straight from a forward-only JDBC cursor to the response, one row at a time,
+// so heap use does not grow with the number of students
+@Service
+public class StudentExportService {
+    private static final String EXPORT_QUERY =
+            "select id, username, email, full_name, enrollment_date, is_active, created_at, updated_at, last_login " +
+            "from users where full_name is not null and enrollment_date is not null order by id";
+
+    private static final String[] COLUMNS = {
+            "id", "username", "email", "fullName", "enrollmentDate", "isActive", "createdAt", "updatedAt", "lastLogin"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format { CSV, NDJSON }
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportService(DataSource dataSource, ObjectMapper objectMapper,
+                                @Value("${app.exportFetchSize:1000}") int fetchSize) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    public void export(OutputStream output, Format format, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+        try {
+            if (format == Format.CSV) {
+                exportCsv(target);
+            } else {
+                exportNdjson(target);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        output.flush();
+    }
+
+    private void exportCsv(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+
+        exportJdbcTemplate.query(EXPORT_QUERY, (ResultSet rs) -> {
+            try {
+                writer.write(Long.toString(rs.getLong("id")));
+                writer.write(',');
+                writeCsvValue(writer, rs.getString("username"));
+                writer.write(',');
+                writeCsvValue(writer, rs.getString("email"));
+                writer.write(',');
+                writeCsvValue(writer, rs.getString("full_name"));
+                writer.write(',');
+                writeCsvValue(writer, String.valueOf(rs.getDate("enrollment_date").toLocalDate()));
+                writer.write(',');
+                writeCsvValue(writer, booleanOf(rs));
+                writer.write(',');
+                writeCsvValue(writer, timestampOf(rs, "created_at"));
+                writer.write(',');
+                writeCsvValue(writer, timestampOf(rs, "updated_at"));
+                writer.write(',');
+                writeCsvValue(writer, timestampOf(rs, "last_login"));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void exportNdjson(OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        exportJdbcTemplate.query(EXPORT_QUERY, (ResultSet rs) -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeStringField("username", rs.getString("username"));
+                generator.writeStringField("email", rs.getString("email"));
+                generator.writeStringField("fullName", rs.getString("full_name"));
+                generator.writeStringField("enrollmentDate", String.valueOf(rs.getDate("enrollment_date").toLocalDate()));
+                generator.writeFieldName("isActive");
+                String active = booleanOf(rs);
+                if (active == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeBoolean(Boolean.parseBoolean(active));
+                }
+                generator.writeStringField("createdAt", timestampOf(rs, "created_at"));
+                generator.writeStringField("updatedAt", timestampOf(rs, "updated_at"));
+                generator.writeStringField("lastLogin", timestampOf(rs, "last_login"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.close();
+    }
+
+    private static String booleanOf(ResultSet rs) throws SQLException {
+        boolean value = rs.getBoolean("is_active");
+        return rs.wasNull() ? null : Boolean.toString(value);
+    }
+
+    private static String timestampOf(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
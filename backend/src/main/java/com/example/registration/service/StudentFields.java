@@ -0,0 +1,113 @@
+package com.example.registration.service;
+
+import com.example.registration.model.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Parsed ?fields= selection for student list responses. No parameter means the full User entity (the original
+// response shape), "all" means every field as a row; id is always included because it is also the pagination cursor.
+public final class StudentFields {
+    public static final List<String> ALLOWED = List.of(
+            "id", "username", "email", "fullName", "enrollmentDate", "roles", "createdAt", "updatedAt", "lastLogin", "isActive");
+    public static final StudentFields SUMMARY = new StudentFields(List.of("id", "username", "fullName", "email", "enrollmentDate"));
+    public static final StudentFields ALL = new StudentFields(ALLOWED, false);
+    public static final StudentFields ENTITY = new StudentFields(ALLOWED, true);
+
+    private final List<String> names;
+    private final boolean entity;
+
+    private StudentFields(List<String> names) {
+        this(names, false);
+    }
+
+    private StudentFields(List<String> names, boolean entity) {
+        this.names = names;
+        this.entity = entity;
+    }
+
+    public static StudentFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ENTITY;
+        }
+        if (fields.trim().equalsIgnoreCase("all")) {
+            return ALL;
+        }
+
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALLOWED.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ". Allowed fields: " + String.join(", ", ALLOWED));
+            }
+            names.add(name);
+        }
+        return new StudentFields(new ArrayList<>(names));
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    // No selection was made: respond with the entities themselves
+    public boolean isEntity() {
+        return entity;
+    }
+
+    public boolean isSummary() {
+        return !entity && Set.copyOf(names).equals(Set.copyOf(SUMMARY.names));
+    }
+
+    // Roles live in another table, so a roles selection costs one more query than plain columns
+    public boolean includesRoles() {
+        return names.contains("roles");
+    }
+
+    public boolean includesLastLogin() {
+        return names.contains("lastLogin");
+    }
+
+    // The selected fields of an already loaded student, in request order
+    public Map<String, Object> select(User user) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            row.put(name, value(user, name));
+        }
+        return row;
+    }
+
+    private static Object value(User user, String name) {
+        switch (name) {
+            case "id":
+                return user.getId();
+            case "username":
+                return user.getUsername();
+            case "email":
+                return user.getEmail();
+            case "fullName":
+                return user.getFullName();
+            case "enrollmentDate":
+                return user.getEnrollmentDate();
+            case "roles":
+                return user.getRoles();
+            case "createdAt":
+                return user.getCreatedAt();
+            case "updatedAt":
+                return user.getUpdatedAt();
+            case "lastLogin":
+                return user.getLastLogin();
+            case "isActive":
+                return user.getIsActive();
+            default:
+                throw new IllegalArgumentException("Unknown field: " + name);
+        }
+    }
+}
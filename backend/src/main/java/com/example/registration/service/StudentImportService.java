@@ -0,0 +1,423 @@
+package com.example.registration.service;
+
+import com.example.registration.exception.BulkOperationException;
+import com.example.registration.exception.ServiceBusyException;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+import com.example.registration.payload.request.SignupRequest;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.services.BoundedPasswordEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+// Streams CSV or NDJSON student rows into the users table in chunks.
+// Each chunk is parsed and validated, hashed on the password encoder's pool, then written with JDBC batch inserts in
+// one transaction.
+@Service
+public class StudentImportService {
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final long MAX_BUSY_BACKOFF_MILLIS = 500;
+
+    private static final String INSERT_USER =
+            "insert into users (username, email, password, full_name, enrollment_date, created_at, updated_at, is_active) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // The id column is an identity column, so roles are attached by username instead of by generated key
+    private static final String INSERT_USER_ROLE =
+            "insert into user_roles (user_id, role_id) select u.id, ? from users u where u.username = ?";
+
+    public enum Format { CSV, NDJSON }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final RoleRegistry roleRegistry;
+    private final UserRepository userRepository;
+    private final StudentSearchIndex studentSearchIndex;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final StudentCounter studentCounter;
+    private final EnrollmentStatistics enrollmentStatistics;
+    private final TakenNames takenNames;
+    private final int chunkSize;
+    private final int hashWindow;
+
+    public StudentImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                BoundedPasswordEncoder passwordEncoder, Validator validator, ObjectMapper objectMapper,
+                                RoleRegistry roleRegistry, UserRepository userRepository,
+                                StudentSearchIndex studentSearchIndex, UserCacheInvalidator userCacheInvalidator,
+                                StudentCounter studentCounter, EnrollmentStatistics enrollmentStatistics,
+                                TakenNames takenNames,
+                                @Value("${app.importChunkSize:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.roleRegistry = roleRegistry;
+        this.userRepository = userRepository;
+        this.studentSearchIndex = studentSearchIndex;
+        this.userCacheInvalidator = userCacheInvalidator;
+        this.studentCounter = studentCounter;
+        this.enrollmentStatistics = enrollmentStatistics;
+        this.takenNames = takenNames;
+        this.chunkSize = chunkSize;
+        // Half the encoder's queue at most, the rest stays free for interactive signins and signups
+        this.hashWindow = Math.max(1, passwordEncoder.getQueueCapacity() / 2);
+    }
+
+    // Import every row of the stream. Chunks commit as they go, so the summary reports imported and failed rows (with the
+    // failures listed under "errors"); only an import in which no row was stored throws BulkOperationException
+    public Map<String, Object> importStudents(InputStream input, Format format) throws IOException {
+        long started = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] header = null;
+            List<RawRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = splitCsv(line);
+                    continue;
+                }
+                chunk.add(new RawRow(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, header, format, progress);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, header, format, progress);
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - started) / 1_000_000_000.0, 0.001);
+        long recordsPerSecond = Math.round(progress.imported / seconds);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("received", progress.received);
+        summary.put("imported", progress.imported);
+        summary.put("failed", progress.failed);
+        summary.put("elapsedMs", Math.round(seconds * 1000));
+        summary.put("recordsPerSecond", recordsPerSecond);
+        logger.info("Student import finished: {}", summary);
+
+        if (progress.failed > 0) {
+            List<String> errors = progress.errors;
+            if (progress.failed > errors.size()) {
+                errors.add("... and " + (progress.failed - errors.size()) + " more failed rows");
+            }
+            if (progress.imported == 0) {
+                throw new BulkOperationException(String.format(
+                        "Imported 0 of %d rows; %d rows failed", progress.received, progress.failed), errors);
+            }
+            summary.put("errors", errors);
+        }
+        return summary;
+    }
+
+    private void importChunk(List<RawRow> rows, String[] header, Format format, ImportProgress progress) {
+        progress.received += rows.size();
+
+        List<PreparedRow> valid = new ArrayList<>();
+        for (RawRow raw : rows) {
+            PreparedRow row = prepare(raw, header, format);
+            if (row.error != null) {
+                progress.fail(row.lineNumber, row.error);
+            } else {
+                valid.add(row);
+            }
+        }
+        valid = rejectDuplicates(valid, progress);
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Only rows that will be inserted are hashed; BCrypt dominates the cost of a row
+        List<String> hashes = hashPasswords(valid);
+        List<PreparedRow> batch = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            batch.add(valid.get(i).withPasswordHash(hashes.get(i)));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+        } catch (RuntimeException e) {
+            logger.warn("Student import chunk of {} rows rolled back: {}", batch.size(), e.getMessage());
+            for (PreparedRow row : batch) {
+                progress.fail(row.lineNumber, "rejected by the database: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+            return;
+        }
+        progress.imported += batch.size();
+        userCacheInvalidator.evictUserLookups();
+        studentCounter.added(batch.size());
+
+        for (User user : userRepository.findByUsernameIn(batch.stream().map(row -> row.request.getUsername()).collect(Collectors.toList()))) {
+            studentSearchIndex.index(user);
+            enrollmentStatistics.index(user);
+            takenNames.add(user.getUsername(), user.getEmail());
+        }
+    }
+
+    private PreparedRow prepare(RawRow row, String[] header, Format format) {
+        SignupRequest request;
+        try {
+            request = format == Format.CSV ? fromCsv(header, row.line) : objectMapper.readValue(row.line, SignupRequest.class);
+        } catch (Exception e) {
+            return PreparedRow.failed(row.lineNumber, "unreadable row: " + e.getMessage());
+        }
+
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return PreparedRow.failed(row.lineNumber, message);
+        }
+
+        try {
+            Set<Role> roles = roleRegistry.resolveSignupRoles(request.getRole());
+            return new PreparedRow(row.lineNumber, request, null, roles, null);
+        } catch (RuntimeException e) {
+            return PreparedRow.failed(row.lineNumber, "role: " + e.getMessage());
+        }
+    }
+
+    // Keeps at most hashWindow hashes queued or running. A full queue (signins can fill it too) is waited out and the
+    // hash resubmitted, so a busy encoder slows the import down instead of failing its rows.
+    private List<String> hashPasswords(List<PreparedRow> rows) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (i >= hashWindow) {
+                await(hashes.get(i - hashWindow));
+            }
+            hashes.add(submitHash(rows.get(i).request.getPassword()));
+        }
+        return hashes.stream().map(StudentImportService::await).collect(Collectors.toList());
+    }
+
+    private CompletableFuture<String> submitHash(String password) {
+        long backoffMillis = 5;
+        while (true) {
+            try {
+                return passwordEncoder.encodeAsync(password);
+            } catch (ServiceBusyException e) {
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for password hashing", interrupted);
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BUSY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> hash) {
+        try {
+            return hash.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Drop rows whose username or email repeats within the chunk or already exists (two queries per chunk);
+    // earlier chunks are committed by now, so the database check also covers repeats across chunks
+    private List<PreparedRow> rejectDuplicates(List<PreparedRow> rows, ImportProgress progress) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                rows.stream().map(row -> row.request.getUsername()).collect(Collectors.toList())));
+        Set<String> takenEmails = new HashSet<>(userRepository.findExistingEmails(
+                rows.stream().map(row -> row.request.getEmail()).collect(Collectors.toList())));
+
+        List<PreparedRow> unique = new ArrayList<>(rows.size());
+        for (PreparedRow row : rows) {
+            String username = row.request.getUsername();
+            String email = row.request.getEmail();
+            if (takenUsernames.contains(username)) {
+                progress.fail(row.lineNumber, "username: " + username + " is already taken");
+            } else if (takenEmails.contains(email)) {
+                progress.fail(row.lineNumber, "email: " + email + " is already in use");
+            } else {
+                takenUsernames.add(username);
+                takenEmails.add(email);
+                unique.add(row);
+            }
+        }
+        return unique;
+    }
+
+    private void insert(List<PreparedRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.request.getUsername());
+            ps.setString(2, row.request.getEmail());
+            ps.setString(3, row.passwordHash);
+            ps.setString(4, row.request.getFullName());
+            ps.setDate(5, Date.valueOf(row.request.getEnrollmentDate()));
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+            ps.setBoolean(8, true);
+        });
+
+        List<Object[]> userRoles = new ArrayList<>();
+        for (PreparedRow row : rows) {
+            for (Role role : row.roles) {
+                userRoles.add(new Object[] {role.getId(), row.request.getUsername()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles);
+    }
+
+    static SignupRequest fromCsv(String[] header, String line) {
+        if (header == null) {
+            throw new IllegalArgumentException("missing CSV header");
+        }
+        String[] values = splitCsv(line);
+        Map<String, String> columns = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            columns.put(header[i].trim().toLowerCase(Locale.ROOT), values[i].trim());
+        }
+
+        SignupRequest request = new SignupRequest();
+        request.setUsername(emptyToNull(columns.get("username")));
+        request.setEmail(emptyToNull(columns.get("email")));
+        request.setPassword(emptyToNull(columns.get("password")));
+        request.setFullName(emptyToNull(columns.get("fullname")));
+        String enrollmentDate = emptyToNull(columns.get("enrollmentdate"));
+        request.setEnrollmentDate(enrollmentDate == null ? null : LocalDate.parse(enrollmentDate));
+        String role = emptyToNull(columns.get("role"));
+        if (role != null) {
+            request.setRole(new HashSet<>(Arrays.asList(role.split("[|;]"))));
+        }
+        return request;
+    }
+
+    // Split one CSV line, honouring double-quoted fields and "" escapes
+    static String[] splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values.toArray(new String[0]);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static final class RawRow {
+        private final int lineNumber;
+        private final String line;
+
+        private RawRow(int lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    private static final class PreparedRow {
+        private final int lineNumber;
+        private final SignupRequest request;
+        private final String passwordHash;
+        private final Set<Role> roles;
+        private final String error;
+
+        private PreparedRow(int lineNumber, SignupRequest request, String passwordHash, Set<Role> roles, String error) {
+            this.lineNumber = lineNumber;
+            this.request = request;
+            this.passwordHash = passwordHash;
+            this.roles = roles;
+            this.error = error;
+        }
+
+        private PreparedRow withPasswordHash(String passwordHash) {
+            return new PreparedRow(lineNumber, request, passwordHash, roles, null);
+        }
+
+        private static PreparedRow failed(int lineNumber, String error) {
+            return new PreparedRow(lineNumber, null, null, null, error);
+        }
+    }
+
+    private static final class ImportProgress {
+        private final List<String> errors = new ArrayList<>();
+        private int received;
+        private int imported;
+        private int failed;
+
+        private void fail(int lineNumber, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + error);
+            }
+        }
+    }
+}
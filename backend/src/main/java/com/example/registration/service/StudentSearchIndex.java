@@ -0,0 +1,173 @@
+package com.example.registration.service;
+
+import com.example.registration.model.User;
+import com.example.registration.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory trigram index over student fullName, email and username.
+// Writers are serialized; readers never lock and verify every candidate against the stored fields.
+@Component
+public class StudentSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StudentSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+
+    // Replace the whole index, used once at startup
+    public synchronized void rebuild(Collection<User> students) {
+        postings.clear();
+        documents.clear();
+        for (User student : students) {
+            put(student.getId(), fieldsOf(student));
+        }
+        logger.info("Student search index built with {} students and {} trigrams", documents.size(), postings.size());
+    }
+
+    // Index (or re-index) a saved user once the surrounding transaction commits
+    public void index(User user) {
+        Long id = user.getId();
+        String[] fields = isStudent(user) ? fieldsOf(user) : null;
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                delete(id);
+                if (fields != null) {
+                    put(id, fields);
+                }
+            }
+        });
+    }
+
+    // Drop a deleted user once the surrounding transaction commits
+    public void remove(Long id) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                delete(id);
+            }
+        });
+    }
+
+    // Ids of students whose fullName, email or username contains the keyword, highest id first
+    public List<Long> search(String keyword) {
+        return search(keyword, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    // At most limit matching ids below the cursor, highest first. A short or common keyword still visits every
+    // candidate, but only the current top ids are kept (min-heap), so a page never holds more than limit ids
+    public List<Long> search(String keyword, long before, int limit) {
+        String needle = keyword.toLowerCase(Locale.ROOT);
+
+        Collection<Long> candidates;
+        if (needle.length() < GRAM) {
+            candidates = documents.keySet();
+        } else {
+            // Every match must contain all trigrams of the keyword, so the rarest one bounds the work
+            Set<Long> smallest = null;
+            for (String gram : gramsOf(needle)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                if (smallest == null || ids.size() < smallest.size()) {
+                    smallest = ids;
+                }
+            }
+            candidates = smallest;
+        }
+
+        PriorityQueue<Long> top = new PriorityQueue<>();
+        for (Long id : candidates) {
+            if (id >= before || (top.size() == limit && id <= top.peek())) {
+                continue;
+            }
+            String[] fields = documents.get(id);
+            if (fields != null && matches(fields, needle)) {
+                top.add(id);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<Long> matches = new ArrayList<>(top);
+        matches.sort(Comparator.reverseOrder());
+        return matches;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private void put(Long id, String[] fields) {
+        documents.put(id, fields);
+        for (String field : fields) {
+            for (String gram : gramsOf(field)) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private void delete(Long id) {
+        String[] fields = documents.remove(id);
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            for (String gram : gramsOf(field)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean matches(String[] fields, String needle) {
+        for (String field : fields) {
+            if (field.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean isStudent(User user) {
+        return user.getFullName() != null && user.getEnrollmentDate() != null;
+    }
+
+    private static String[] fieldsOf(User user) {
+        return new String[] {
+                lower(user.getFullName()),
+                lower(user.getEmail()),
+                lower(user.getUsername())
+        };
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.registration.service;
+
+import com.example.registration.repository.UserRepository;
+import com.example.registration.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Bloom filters of every username and email ever taken, for the availability check and the signup pre-check.
+// A name the filter has never seen is free without a query; a possible hit is confirmed against the database.
+// Deleted or renamed names stay in the filter and only cost that confirming query. Until the first rebuild the
+// filters would report every name free, so every lookup goes to the database until then.
+@Component
+public class TakenNames {
+    private static final Logger logger = LoggerFactory.getLogger(TakenNames.class);
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedNames;
+    private final double falsePositiveRate;
+    private final Counter filterAnswers;
+    private final Counter databaseAnswers;
+
+    // Null until the first rebuild has finished
+    private volatile Filters current;
+    // Set while rebuild() scans the table, so names added meanwhile reach the new filters as well
+    private volatile Filters building;
+
+    public TakenNames(UserRepository userRepository, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                      @Value("${app.takenNamesExpected:1000000}") long expectedNames,
+                      @Value("${app.takenNamesFalsePositiveRate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedNames = expectedNames;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filterAnswers = meterRegistry.counter("auth.availability.lookups", "source", "filter");
+        this.databaseAnswers = meterRegistry.counter("auth.availability.lookups", "source", "database");
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    // Load every username and email, used once at startup and after bulk loads that bypass the write paths
+    public synchronized void rebuild() {
+        Filters filters = new Filters(expectedNames, falsePositiveRate);
+        building = filters;
+        jdbcTemplate.query("select username, email from users", rs -> {
+            filters.usernames.put(key(rs.getString(1)));
+            filters.emails.put(key(rs.getString(2)));
+        });
+        current = filters;
+        building = null;
+        logger.info("Taken names filter built ({} KB per filter)", filters.usernames.sizeInBytes() / 1024);
+    }
+
+    // Reads building before current: rebuild() publishes current before clearing building, so a rebuild finishing
+    // in between cannot leave the name only in the filters it replaced
+    public void add(String username, String email) {
+        Filters next = building;
+        if (next != null) {
+            add(next, username, email);
+        }
+        Filters filters = current;
+        if (filters != null) {
+            add(filters, username, email);
+        }
+    }
+
+    public boolean isUsernameTaken(String username) {
+        Filters filters = current;
+        if (filters != null && !filters.usernames.mightContain(key(username))) {
+            filterAnswers.increment();
+            return false;
+        }
+        databaseAnswers.increment();
+        return userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailTaken(String email) {
+        Filters filters = current;
+        if (filters != null && !filters.emails.mightContain(key(email))) {
+            filterAnswers.increment();
+            return false;
+        }
+        databaseAnswers.increment();
+        return userRepository.existsByEmail(email);
+    }
+
+    private static void add(Filters filters, String username, String email) {
+        if (username != null) {
+            filters.usernames.put(key(username));
+        }
+        if (email != null) {
+            filters.emails.put(key(email));
+        }
+    }
+
+    // Case-folded so the filter covers case-insensitive collations too; the database answers exactly
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        private Filters(long expectedNames, double falsePositiveRate) {
+            this.usernames = new BloomFilter(expectedNames, falsePositiveRate);
+            this.emails = new BloomFilter(expectedNames, falsePositiveRate);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.registration.service;
+
+import com.example.registration.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+
+// JDBC writers (bulk import, last-login flush) bypass Hibernate, so they must drop the second-level cache
+// entries they made stale; JPA writes keep the cache consistent on their own
+@Component
+public class UserCacheInvalidator {
+    public static final String USER_LOOKUPS_REGION = "user-lookups";
+    private static final String USER_ROLES = User.class.getName() + ".roles";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Counter entityEvictions;
+    private final Counter lookupEvictions;
+
+    public UserCacheInvalidator(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityEvictions = meterRegistry.counter("hibernate.cache.invalidations", "region", "users");
+        this.lookupEvictions = meterRegistry.counter("hibernate.cache.invalidations", "region", USER_LOOKUPS_REGION);
+    }
+
+    // Rows updated outside Hibernate
+    public void evictUsers(Collection<Long> ids) {
+        Cache cache = cache();
+        for (Long id : ids) {
+            cache.evictEntityData(User.class, id);
+            cache.evictCollectionData(USER_ROLES, id);
+        }
+        entityEvictions.increment(ids.size());
+    }
+
+    // Rows inserted outside Hibernate: cached username/email lookups may still say "not found"
+    public void evictUserLookups() {
+        cache().evictQueryRegion(USER_LOOKUPS_REGION);
+        lookupEvictions.increment();
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -1,51 +1,133 @@
 package com.example.registration.service;
 
-import com.example.registration.exception.DuplicateStudentException;
+import com.example.registration.exception.BulkOperationException;
 import com.example.registration.exception.StudentNotFoundException;
 import com.example.registration.model.ERole;
 import com.example.registration.model.Role;
 import com.example.registration.model.User;
+import com.example.registration.payload.request.BulkStudentRequest;
 import com.example.registration.payload.request.UpdateUserRequest;
-import com.example.registration.repository.RoleRepository;
+import com.example.registration.payload.response.CursorPageResponse;
+import com.example.registration.payload.response.StudentSummary;
 import com.example.registration.repository.UserRepository;
+import com.example.registration.security.services.TokenVersionRegistry;
+import com.example.registration.security.services.UserPrincipalCache;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = "student.service", histogram = true) // one timer per public method, tagged class/method
 public class UserStudentService {
+    private static final Logger logger = LoggerFactory.getLogger(UserStudentService.class);
+    public static final int DEFAULT_PAGE_LIMIT = 50;
+    public static final int MAX_PAGE_LIMIT = 500;
+
+    // Ids per set-based statement, keeps IN lists well below driver parameter limits
+    private static final int BULK_STATEMENT_SIZE = 1000;
+    private static final LocalDate EARLIEST_ENROLLMENT = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LATEST_ENROLLMENT = LocalDate.of(9999, 12, 31);
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final StudentSearchIndex studentSearchIndex;
+    private final UserPrincipalCache userPrincipalCache;
+    private final StudentCounter studentCounter;
+    private final EnrollmentStatistics enrollmentStatistics;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TakenNames takenNames;
 
-    public UserStudentService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserStudentService(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder,
+                              StudentSearchIndex studentSearchIndex, UserPrincipalCache userPrincipalCache,
+                              StudentCounter studentCounter, EnrollmentStatistics enrollmentStatistics,
+                              TokenVersionRegistry tokenVersionRegistry, TakenNames takenNames) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.passwordEncoder = passwordEncoder;
+        this.studentSearchIndex = studentSearchIndex;
+        this.userPrincipalCache = userPrincipalCache;
+        this.studentCounter = studentCounter;
+        this.enrollmentStatistics = enrollmentStatistics;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.takenNames = takenNames;
     }
 
-    // Get all students (users with full names and enrollment dates)
+    // Get all students (users with full names and enrollment dates). Without a selection these are the entities; otherwise
+    // only the requested fields are read: the summary projection or the selected columns (roles with one more query)
     @Transactional(readOnly = true)
-    public List<User> getAllStudents() {
-        return userRepository.findAll(Sort.by(Sort.Direction.DESC, "id"))
-                .stream()
-                .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
-                .toList();
+    public List<?> getAllStudents(StudentFields fields) {
+        if (fields.isEntity()) {
+            return withRoles(userRepository.findAllStudents());
+        }
+        if (fields.isSummary()) {
+            return userRepository.findStudentSummaries();
+        }
+        return userRepository.findStudentColumns(fields.getNames(), null, 0);
     }
 
     // Get all students with pagination
     @Transactional(readOnly = true)
     public Page<User> getAllStudents(Pageable pageable) {
-        return userRepository.findAll(pageable);
+        Page<User> page = userRepository.findAllStudents(pageable);
+        withRoles(page.getContent());
+        return page;
+    }
+
+    // Get one page of students below the cursor id (newest first); a null cursor starts from the top
+    @Transactional(readOnly = true)
+    public CursorPageResponse<?> getStudentsAfter(Long after, Integer limit, StudentFields fields) {
+        int pageLimit = pageLimit(limit);
+
+        // Fetch one extra row to know whether another page exists
+        long before = after == null ? Long.MAX_VALUE : after;
+        if (fields.isEntity()) {
+            return cursorPage(withRoles(userRepository.findStudentsBefore(before, PageRequest.of(0, pageLimit + 1))),
+                    pageLimit, User::getId);
+        }
+        if (fields.isSummary()) {
+            return cursorPage(userRepository.findStudentSummariesBefore(before, PageRequest.of(0, pageLimit + 1)),
+                    pageLimit, StudentSummary::getId);
+        }
+        return cursorPage(userRepository.findStudentColumns(fields.getNames(), before, pageLimit + 1),
+                pageLimit, row -> (Long) row.get("id"));
+    }
+
+    // Strong validator for one student's representation (id, last save, last login)
+    public String studentETag(User user) {
+        return user.getId() + "-" + stamp(user.getUpdatedAt()) + "-" + stamp(user.getLastLogin());
+    }
+
+    // Validator for the student list, computed with one aggregate query instead of loading the rows.
+    // Sign-ins only touch lastLogin, so they change the validator only for selections that return it.
+    @Transactional(readOnly = true)
+    public String studentListETag(StudentFields fields) {
+        UserRepository.StudentsVersion version = userRepository.findStudentsVersion();
+        String etag = "students-" + version.getCount() + "-" + version.getMaxId() + "-" + stamp(version.getMaxUpdatedAt());
+        return fields.includesLastLogin() ? etag + "-" + stamp(version.getMaxLastLogin()) : etag;
     }
 
     // Get student by ID
@@ -53,6 +135,7 @@ public class UserStudentService {
     public User getStudentById(Long id) {
         return userRepository.findById(id)
                 .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
+                .map(this::withRoles)
                 .orElseThrow(() -> new StudentNotFoundException("Student not found with id: " + id));
     }
 
@@ -61,6 +144,7 @@ public class UserStudentService {
     public User getCurrentStudent(String username) {
         return userRepository.findByUsername(username)
                 .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
+                .map(this::withRoles)
                 .orElseThrow(() -> new StudentNotFoundException("Student profile not found for user: " + username));
     }
 
@@ -68,6 +152,8 @@ public class UserStudentService {
     public User updateStudentProfile(String username, UpdateUserRequest updatedProfile) {
         User existingUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new StudentNotFoundException("User not found: " + username));
+        String previousUsername = existingUser.getUsername();
+        String previousEmail = existingUser.getEmail();
 
         // Basic validation for required fields
         if (updatedProfile.getUsername() != null && updatedProfile.getUsername().trim().isEmpty()) {
@@ -107,13 +193,21 @@ public class UserStudentService {
             existingUser.setPassword(passwordEncoder.encode(updatedProfile.getPassword().trim()));
         }
         
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        studentSearchIndex.index(saved);
+        enrollmentStatistics.index(saved);
+        takenNames.add(saved.getUsername(), saved.getEmail());
+        userPrincipalCache.evict(previousUsername, saved.getUsername());
+        revokeTokensIfChanged(saved, previousUsername, previousEmail, false);
+        return withRoles(saved);
     }
 
     // Update any student (admin/moderator only)
     public User updateStudent(Long id, UpdateUserRequest updatedProfile) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new StudentNotFoundException("Student not found with id: " + id));
+        String previousUsername = existingUser.getUsername();
+        String previousEmail = existingUser.getEmail();
 
         // Basic validation for required fields
         if (updatedProfile.getUsername() != null && updatedProfile.getUsername().trim().isEmpty()) {
@@ -153,13 +247,21 @@ public class UserStudentService {
             existingUser.setPassword(passwordEncoder.encode(updatedProfile.getPassword().trim()));
         }
         
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        studentSearchIndex.index(saved);
+        enrollmentStatistics.index(saved);
+        takenNames.add(saved.getUsername(), saved.getEmail());
+        userPrincipalCache.evict(previousUsername, saved.getUsername());
+        revokeTokensIfChanged(saved, previousUsername, previousEmail, hasText(updatedProfile.getPassword()));
+        return withRoles(saved);
     }
 
     // Update student with roles (admin only)
     public User updateStudentWithRoles(Long id, UpdateUserRequest updatedProfile, List<String> roleStrings) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new StudentNotFoundException("Student not found with id: " + id));
+        String previousUsername = existingUser.getUsername();
+        String previousEmail = existingUser.getEmail();
 
         // Basic validation for required fields
         if (updatedProfile.getUsername() != null && updatedProfile.getUsername().trim().isEmpty()) {
@@ -201,6 +303,8 @@ public class UserStudentService {
 
         // Update roles if provided (including empty array to remove all roles)
         if (roleStrings != null) {
+            // A collection change alone does not dirty the row, so bump updatedAt to move the ETag
+            existingUser.setUpdatedAt(LocalDateTime.now());
             if (roleStrings.isEmpty()) {
                 // Admin wants to remove all roles
                 existingUser.setRoles(new HashSet<>());
@@ -211,7 +315,14 @@ public class UserStudentService {
             }
         }
         
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        studentSearchIndex.index(saved);
+        enrollmentStatistics.index(saved);
+        takenNames.add(saved.getUsername(), saved.getEmail());
+        userPrincipalCache.evict(previousUsername, saved.getUsername());
+        revokeTokensIfChanged(saved, previousUsername, previousEmail,
+                hasText(updatedProfile.getPassword()) || roleStrings != null);
+        return withRoles(saved);
     }
 
     // Delete student (admin/moderator only)
@@ -220,6 +331,13 @@ public class UserStudentService {
                 .orElseThrow(() -> new StudentNotFoundException("Student not found with id: " + id));
         
         userRepository.delete(user);
+        studentSearchIndex.remove(id);
+        enrollmentStatistics.remove(id);
+        userPrincipalCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(id);
+        if (isStudent(user)) {
+            studentCounter.removed(1);
+        }
     }
 
     // Complete student profile (add student info to existing user)
@@ -227,26 +345,214 @@ public class UserStudentService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new StudentNotFoundException("User not found: " + username));
 
+        boolean wasStudent = isStudent(user);
         user.setFullName(fullName);
         user.setEnrollmentDate(enrollmentDate);
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        studentSearchIndex.index(saved);
+        enrollmentStatistics.index(saved);
+        takenNames.add(saved.getUsername(), saved.getEmail());
+        if (!wasStudent && isStudent(saved)) {
+            studentCounter.added(1);
+        }
+        return withRoles(saved);
+    }
+
+    // Recount the enrollment statistics from the database, e.g. after rows were changed outside the application
+    @Transactional(readOnly = true)
+    public Map<String, Object> rebuildEnrollmentStatistics() {
+        enrollmentStatistics.rebuild(userRepository.findAllStudents());
+        return enrollmentStatistics.snapshot();
     }
 
-    // Search students by name or email
+    // Search students by name, email or username (matched in memory, only one page of hits is loaded).
+    // Pages work like getStudentsAfter: highest id first, below the cursor id, at most MAX_PAGE_LIMIT per page.
     @Transactional(readOnly = true)
-    public List<User> searchStudents(String keyword) {
-        return userRepository.findAll()
+    public CursorPageResponse<?> searchStudents(String keyword, Long after, Integer limit, StudentFields fields) {
+        int pageLimit = pageLimit(limit);
+        List<Long> hits = studentSearchIndex.search(keyword, after == null ? Long.MAX_VALUE : after, pageLimit + 1);
+        if (hits.size() <= pageLimit) {
+            return new CursorPageResponse<>(findStudentsByIdIn(hits, fields), null, pageLimit);
+        }
+        List<Long> ids = hits.subList(0, pageLimit);
+        return new CursorPageResponse<>(findStudentsByIdIn(ids, fields), ids.get(pageLimit - 1), pageLimit);
+    }
+
+    // The selected fields of the given students, highest id first
+    private List<?> findStudentsByIdIn(List<Long> ids, StudentFields fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (fields.isSummary()) {
+            return userRepository.findStudentSummariesByIdIn(ids);
+        }
+        if (!fields.isEntity()) {
+            return userRepository.findStudentColumnsByIdIn(fields.getNames(), ids);
+        }
+        return userRepository.findWithRolesByIdIn(ids)
                 .stream()
-                .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
-                .filter(user -> 
-                    user.getFullName().toLowerCase().contains(keyword.toLowerCase()) ||
-                    user.getEmail().toLowerCase().contains(keyword.toLowerCase()) ||
-                    user.getUsername().toLowerCase().contains(keyword.toLowerCase())
-                )
+                .sorted(Comparator.comparing(User::getId).reversed())
                 .toList();
     }
 
+    // Delete many students at once (admin/moderator only)
+    public Map<String, Object> bulkDeleteStudents(BulkStudentRequest request) {
+        List<Long> ids = resolveBulkSelection(request);
+
+        int deleted = 0;
+        long students = 0;
+        for (List<Long> chunk : partition(ids)) {
+            students += userRepository.countStudentsByIdIn(chunk);
+            userRepository.deleteRoles(chunk);
+            deleted += userRepository.deleteByIdIn(chunk);
+        }
+
+        ids.forEach(studentSearchIndex::remove);
+        ids.forEach(enrollmentStatistics::remove);
+        tokenVersionRegistry.revoke(ids);
+        studentCounter.removed(students);
+        userPrincipalCache.evictAll();
+        return bulkSummary("delete", ids.size(), deleted);
+    }
+
+    // Activate or deactivate many students at once (admin/moderator only)
+    public Map<String, Object> bulkUpdateStatus(BulkStudentRequest request) {
+        if (request.getActive() == null) {
+            throw new IllegalArgumentException("Target status 'active' is required");
+        }
+        List<Long> ids = resolveBulkSelection(request);
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (List<Long> chunk : partition(ids)) {
+            updated += userRepository.updateActive(chunk, request.getActive(), now);
+        }
+        enrollmentStatistics.updateActive(ids, request.getActive());
+        return bulkSummary(request.getActive() ? "activate" : "deactivate", ids.size(), updated);
+    }
+
+    // Add, remove or replace roles of many students at once (admin only)
+    public Map<String, Object> bulkUpdateRoles(BulkStudentRequest request) {
+        String mode = request.getRoleMode() == null ? "add" : request.getRoleMode().trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("add") && !mode.equals("remove") && !mode.equals("set")) {
+            throw new IllegalArgumentException("Role mode must be one of: add, remove, set");
+        }
+        if ((request.getRoles() == null || request.getRoles().isEmpty()) && !mode.equals("set")) {
+            throw new IllegalArgumentException("At least one role is required");
+        }
+        List<Integer> roleIds = resolveRoleIds(request.getRoles());
+        Set<ERole> roleNames = roleIds.isEmpty() ? Set.of() : convertStringRolesToRoles(request.getRoles()).stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet());
+        List<Long> ids = resolveBulkSelection(request);
+
+        LocalDateTime now = LocalDateTime.now();
+        int changed = 0;
+        for (List<Long> chunk : partition(ids)) {
+            if (mode.equals("remove")) {
+                changed += userRepository.deleteRoles(chunk, roleIds);
+            } else {
+                if (mode.equals("set")) {
+                    changed += userRepository.deleteRoles(chunk);
+                }
+                if (!roleIds.isEmpty()) {
+                    changed += userRepository.insertRoles(chunk, roleIds);
+                }
+            }
+            userRepository.touch(chunk, now);
+        }
+        enrollmentStatistics.updateRoles(ids, mode, roleNames);
+        tokenVersionRegistry.revoke(ids);
+
+        userPrincipalCache.evictAll();
+        return bulkSummary("roles:" + mode, ids.size(), changed);
+    }
+
+    // Resolve a bulk request to student ids; unknown ids, accounts without a student profile and administrators fail
+    // the whole operation before anything changes. A date range silently leaves administrators out, so bulk
+    // operations can never delete, deactivate or demote an admin account.
+    private List<Long> resolveBulkSelection(BulkStudentRequest request) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byRange = request.getEnrolledFrom() != null || request.getEnrolledTo() != null;
+        if (byIds == byRange) {
+            throw new IllegalArgumentException("Select students either by ids or by enrollment date range");
+        }
+
+        if (byRange) {
+            LocalDate from = request.getEnrolledFrom() != null ? request.getEnrolledFrom() : EARLIEST_ENROLLMENT;
+            LocalDate to = request.getEnrolledTo() != null ? request.getEnrolledTo() : LATEST_ENROLLMENT;
+            List<Long> ids = userRepository.findStudentIdsEnrolledBetween(from, to);
+            Set<Long> admins = findAdminIds(ids);
+            return admins.isEmpty() ? ids : ids.stream().filter(id -> !admins.contains(id)).collect(Collectors.toList());
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : partition(ids)) {
+            existing.addAll(userRepository.findStudentIdsByIdIn(chunk));
+        }
+        List<String> errors = ids.stream()
+                .filter(id -> !existing.contains(id))
+                .map(id -> "Student not found with id: " + id)
+                .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            throw new BulkOperationException(errors.size() + " of " + ids.size() + " students not found, nothing was changed", errors);
+        }
+        Set<Long> admins = findAdminIds(ids);
+        if (!admins.isEmpty()) {
+            List<String> adminErrors = ids.stream()
+                    .filter(admins::contains)
+                    .map(id -> "Student " + id + " is an administrator and cannot be changed in bulk")
+                    .collect(Collectors.toList());
+            throw new BulkOperationException(adminErrors.size() + " of " + ids.size() + " students are administrators, nothing was changed", adminErrors);
+        }
+        return ids;
+    }
+
+    private Set<Long> findAdminIds(List<Long> ids) {
+        Set<Long> admins = new HashSet<>();
+        for (List<Long> chunk : partition(ids)) {
+            admins.addAll(userRepository.findIdsWithRoleByIdIn(chunk, ERole.ROLE_ADMIN));
+        }
+        return admins;
+    }
+
+    private List<Integer> resolveRoleIds(List<String> roleStrings) {
+        if (roleStrings == null) {
+            return List.of();
+        }
+        for (String roleString : roleStrings) {
+            String normalizedRoleName = roleString.startsWith("ROLE_") ? roleString : "ROLE_" + roleString;
+            boolean known;
+            try {
+                known = roleRegistry.find(ERole.valueOf(normalizedRoleName)).isPresent();
+            } catch (IllegalArgumentException e) {
+                known = false;
+            }
+            if (!known) {
+                throw new IllegalArgumentException("Unknown role: " + roleString);
+            }
+        }
+        return convertStringRolesToRoles(roleStrings).stream().map(Role::getId).collect(Collectors.toList());
+    }
+
+    private static List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_STATEMENT_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + BULK_STATEMENT_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static Map<String, Object> bulkSummary(String operation, int matched, int affected) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("operation", operation);
+        summary.put("matched", matched);
+        summary.put("affected", affected);
+        return summary;
+    }
+
     // Helper method to convert role strings to Role entities
     private Set<Role> convertStringRolesToRoles(List<String> roleStrings) {
         Set<Role> roles = new HashSet<>();
@@ -259,15 +565,61 @@ public class UserStudentService {
                         roleString : "ROLE_" + roleString;
                     
                     ERole eRole = ERole.valueOf(normalizedRoleName);
-                    Optional<Role> role = roleRepository.findByName(eRole);
-                    role.ifPresent(roles::add);
+                    roleRegistry.find(eRole).ifPresent(roles::add);
                 } catch (IllegalArgumentException e) {
                     // Invalid role name, skip it
-                    System.err.println("Invalid role name: " + roleString);
+                    logger.warn("Ignoring invalid role name: {}", roleString);
                 }
             }
         }
         
         return roles;
     }
+
+    // Open-in-view is off and entities are serialized after the transaction, so load roles while the
+    // session is still open; for a list the first access batch-loads every role set (@BatchSize on User.roles)
+    private User withRoles(User user) {
+        Hibernate.initialize(user.getRoles());
+        return user;
+    }
+
+    private List<User> withRoles(List<User> users) {
+        users.forEach(user -> Hibernate.initialize(user.getRoles()));
+        return users;
+    }
+
+    private static String stamp(LocalDateTime time) {
+        return time == null ? "0" : Long.toString(time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000, 36);
+    }
+
+    // Tokens carrying claims (app.jwtStatelessClaims) must not outlive a change of username, email, roles or password
+    private void revokeTokensIfChanged(User saved, String previousUsername, String previousEmail, boolean credentialsChanged) {
+        if (credentialsChanged || !saved.getUsername().equals(previousUsername) || !saved.getEmail().equals(previousEmail)) {
+            tokenVersionRegistry.revoke(saved.getId());
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static boolean isStudent(User user) {
+        return user.getFullName() != null && user.getEnrollmentDate() != null;
+    }
+
+    private static int pageLimit(Integer limit) {
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+        if (pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return pageLimit;
+    }
+
+    private <T> CursorPageResponse<T> cursorPage(List<T> rows, int pageLimit, Function<T, Long> id) {
+        if (rows.size() <= pageLimit) {
+            return new CursorPageResponse<>(rows, null, pageLimit);
+        }
+        List<T> page = rows.subList(0, pageLimit);
+        return new CursorPageResponse<>(page, id.apply(page.get(pageLimit - 1)), pageLimit);
+    }
 }
@@ -0,0 +1,30 @@
+-- Schema as previously created by Hibernate (ddl-auto=update); existing databases are baselined at this version
+create table roles (
+    id integer generated by default as identity,
+    name varchar(20),
+    primary key (id)
+);
+
+create table users (
+    id bigint generated by default as identity,
+    created_at timestamp,
+    email varchar(50) not null,
+    enrollment_date date not null,
+    full_name varchar(100) not null,
+    is_active boolean,
+    last_login timestamp,
+    password varchar(120) not null,
+    updated_at timestamp,
+    username varchar(20) not null,
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    role_id integer not null,
+    primary key (user_id, role_id),
+    constraint fk_user_roles_user foreign key (user_id) references users (id),
+    constraint fk_user_roles_role foreign key (role_id) references roles (id)
+);
@@ -0,0 +1,30 @@
+-- Schema as Hibernate would create it for MySQL 8; existing databases are baselined at this version
+create table roles (
+    id integer not null auto_increment,
+    name varchar(20),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    email varchar(50) not null,
+    enrollment_date date not null,
+    full_name varchar(100) not null,
+    is_active bit,
+    last_login datetime(6),
+    password varchar(120) not null,
+    updated_at datetime(6),
+    username varchar(20) not null,
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table user_roles (
+    user_id bigint not null,
+    role_id integer not null,
+    primary key (user_id, role_id),
+    constraint fk_user_roles_user foreign key (user_id) references users (id),
+    constraint fk_user_roles_role foreign key (role_id) references roles (id)
+) engine=InnoDB;
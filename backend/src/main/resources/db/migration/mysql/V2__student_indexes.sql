@@ -0,0 +1,11 @@
+-- Bulk selection by enrollment range (findStudentIdsEnrolledBetween) reads ids straight from the index
+create index idx_users_enrollment_date on users (enrollment_date, id);
+
+-- Active/inactive filters, optionally narrowed by enrollment date
+create index idx_users_active_enrollment on users (is_active, enrollment_date);
+
+-- Name lookups and prefix matches (full_name = ? / like 'abc%') and ordering by name
+create index idx_users_full_name on users (full_name);
+
+-- Students holding a role: the primary key leads with user_id, so role-first lookups need their own index
+create index idx_user_roles_role_user on user_roles (role_id, user_id);
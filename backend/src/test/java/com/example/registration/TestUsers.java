@@ -0,0 +1,39 @@
+package com.example.registration;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.security.services.UserPrincipal;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Users saved through JPA and signed tokens for them, shared by the tests that go through the security filter
+public final class TestUsers {
+
+	private TestUsers() {
+	}
+
+	public static User save(UserRepository userRepository, RoleRepository roleRepository, String username, ERole... roles) {
+		User user = new User(username, username + "@example.com", "unused", "Test " + username, LocalDate.of(2024, 1, 2));
+		for (ERole role : roles) {
+			user.getRoles().add(roleRepository.findByName(role).orElseThrow());
+		}
+		return userRepository.save(user);
+	}
+
+	public static String bearer(JwtUtils jwtUtils, User user, ERole... roles) {
+		List<GrantedAuthority> authorities = Arrays.stream(roles)
+				.map(role -> new SimpleGrantedAuthority(role.name()))
+				.collect(Collectors.toList());
+		UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), user.getEmail(), null, authorities);
+		return "Bearer " + jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+	}
+}
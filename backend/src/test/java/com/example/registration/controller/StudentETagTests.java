@@ -0,0 +1,169 @@
+package com.example.registration.controller;
+
+import com.example.registration.TestUsers;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.service.LastLoginTracker;
+import com.example.registration.service.UserStudentService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every kind of write must move the validators, otherwise clients keep getting 304 for a stale list
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StudentETagTests {
+
+	private static final String SUMMARY = "/api/students?fields=username,fullName,email,enrollmentDate";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private LastLoginTracker lastLoginTracker;
+
+	private User admin;
+	private User student;
+	private String token;
+
+	@BeforeAll
+	void saveUsers() {
+		admin = TestUsers.save(userRepository, roleRepository, "etagadmin", ERole.ROLE_ADMIN);
+		student = TestUsers.save(userRepository, roleRepository, "etagstudent", ERole.ROLE_USER);
+		token = TestUsers.bearer(jwtUtils, admin, ERole.ROLE_ADMIN);
+	}
+
+	@AfterAll
+	void deleteUsers() {
+		userStudentService.deleteStudent(admin.getId());
+		userStudentService.deleteStudent(student.getId());
+	}
+
+	@Test
+	void answersNotModifiedWhileNothingChanged() throws Exception {
+		String list = etag("/api/students");
+
+		mockMvc.perform(get("/api/students").header("Authorization", token).header(HttpHeaders.IF_NONE_MATCH, list))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, list))
+				.andExpect(content().string(""));
+
+		String one = etag("/api/students/" + student.getId());
+		mockMvc.perform(get("/api/students/" + student.getId()).header("Authorization", token).header(HttpHeaders.IF_NONE_MATCH, one))
+				.andExpect(status().isNotModified());
+
+		// Each selection and page is its own representation
+		assertThat(etag(SUMMARY)).isNotEqualTo(list);
+		assertThat(etag("/api/students?limit=10")).isNotEqualTo(list);
+		mockMvc.perform(get(SUMMARY).header("Authorization", token).header(HttpHeaders.IF_NONE_MATCH, list))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void changesAfterUpdate() throws Exception {
+		String list = etag("/api/students");
+		String one = etag("/api/students/" + student.getId());
+
+		mockMvc.perform(put("/api/students/" + student.getId()).header("Authorization", token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"fullName\":\"Renamed Student\"}"))
+				.andExpect(status().isOk());
+
+		assertThat(etag("/api/students")).isNotEqualTo(list);
+		assertThat(etag("/api/students/" + student.getId())).isNotEqualTo(one);
+		mockMvc.perform(get("/api/students").header("Authorization", token).header(HttpHeaders.IF_NONE_MATCH, list))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void changesAfterRoleChange() throws Exception {
+		String list = etag("/api/students");
+		String summary = etag(SUMMARY);
+		String one = etag("/api/students/" + student.getId());
+
+		// Only the user_roles rows change, the users row itself is not dirty
+		mockMvc.perform(put("/api/students/" + student.getId()).header("Authorization", token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"roles\":[\"user\",\"mod\"]}"))
+				.andExpect(status().isOk());
+
+		String afterUpdate = etag("/api/students");
+		assertThat(afterUpdate).isNotEqualTo(list);
+		assertThat(etag(SUMMARY)).isNotEqualTo(summary);
+		assertThat(etag("/api/students/" + student.getId())).isNotEqualTo(one);
+
+		mockMvc.perform(put("/api/students/bulk/roles").header("Authorization", token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ids\":[" + student.getId() + "],\"roles\":[\"MODERATOR\"],\"roleMode\":\"remove\"}"))
+				.andExpect(status().isOk());
+
+		assertThat(etag("/api/students")).isNotEqualTo(afterUpdate);
+	}
+
+	@Test
+	void changesAfterDelete() throws Exception {
+		User doomed = TestUsers.save(userRepository, roleRepository, "etagdoomed", ERole.ROLE_USER);
+		String list = etag("/api/students");
+		String summary = etag(SUMMARY);
+
+		mockMvc.perform(delete("/api/students/" + doomed.getId()).header("Authorization", token))
+				.andExpect(status().isOk());
+
+		assertThat(etag("/api/students")).isNotEqualTo(list);
+		assertThat(etag(SUMMARY)).isNotEqualTo(summary);
+	}
+
+	@Test
+	void lastLoginFlushChangesSelectionsThatReturnIt() throws Exception {
+		String list = etag("/api/students");
+		String summary = etag(SUMMARY);
+		String one = etag("/api/students/" + student.getId());
+
+		lastLoginTracker.record(student.getId());
+		lastLoginTracker.flush();
+
+		assertThat(etag("/api/students")).isNotEqualTo(list);
+		assertThat(etag("/api/students/" + student.getId())).isNotEqualTo(one);
+		// The summary has no lastLogin column, so a sign-in does not invalidate it
+		assertThat(etag(SUMMARY)).isEqualTo(summary);
+	}
+
+	private String etag(String url) throws Exception {
+		String etag = mockMvc.perform(get(url).header("Authorization", token))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotBlank();
+		return etag;
+	}
+}
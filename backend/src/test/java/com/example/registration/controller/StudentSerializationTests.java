@@ -0,0 +1,115 @@
+package com.example.registration.controller;
+
+import com.example.registration.TestUsers;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.service.StudentFields;
+import com.example.registration.service.StudentSearchIndex;
+import com.example.registration.service.UserStudentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Open-in-view is off, so every entity response must be rendered from what the service loaded inside its transaction
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StudentSerializationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private StudentSearchIndex studentSearchIndex;
+
+	private User admin;
+	private User student;
+
+	@BeforeAll
+	void saveUsers() {
+		admin = TestUsers.save(userRepository, roleRepository, "jsonadmin", ERole.ROLE_ADMIN);
+		student = TestUsers.save(userRepository, roleRepository, "jsonstudent", ERole.ROLE_USER, ERole.ROLE_MODERATOR);
+		studentSearchIndex.index(student);
+	}
+
+	@AfterAll
+	void deleteUsers() {
+		userStudentService.deleteStudent(admin.getId());
+		userStudentService.deleteStudent(student.getId());
+	}
+
+	@Test
+	void serializesEntityListOutsideTransaction() throws Exception {
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+
+		String json = objectMapper.writeValueAsString(userStudentService.getAllStudents(StudentFields.ENTITY));
+
+		assertThat(json).contains("\"username\":\"jsonstudent\"").contains("ROLE_MODERATOR");
+
+		String page = objectMapper.writeValueAsString(userStudentService.getStudentsAfter(student.getId() + 1, 1, StudentFields.ENTITY));
+		assertThat(page).contains("\"username\":\"jsonstudent\"").contains("ROLE_MODERATOR");
+	}
+
+	@Test
+	void rendersRolesOfListedStudents() throws Exception {
+		mockMvc.perform(get("/api/students").header("Authorization", TestUsers.bearer(jwtUtils, admin, ERole.ROLE_ADMIN)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.username == 'jsonstudent')].roles[*].name")
+						.value(org.hamcrest.Matchers.containsInAnyOrder("ROLE_USER", "ROLE_MODERATOR")));
+
+		mockMvc.perform(get("/api/students?limit=500").header("Authorization", TestUsers.bearer(jwtUtils, admin, ERole.ROLE_ADMIN)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[?(@.username == 'jsonstudent')].roles[*].name")
+						.value(org.hamcrest.Matchers.containsInAnyOrder("ROLE_USER", "ROLE_MODERATOR")));
+
+		mockMvc.perform(get("/api/students/search?keyword=jsonstudent")
+						.header("Authorization", TestUsers.bearer(jwtUtils, admin, ERole.ROLE_ADMIN)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].roles[*].name")
+						.value(org.hamcrest.Matchers.containsInAnyOrder("ROLE_USER", "ROLE_MODERATOR")));
+	}
+
+	@Test
+	void rendersRolesOfSingleStudent() throws Exception {
+		mockMvc.perform(get("/api/students/" + student.getId())
+						.header("Authorization", TestUsers.bearer(jwtUtils, admin, ERole.ROLE_ADMIN)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.roles[*].name").value(org.hamcrest.Matchers.containsInAnyOrder("ROLE_USER", "ROLE_MODERATOR")));
+
+		mockMvc.perform(get("/api/students/me")
+						.header("Authorization", TestUsers.bearer(jwtUtils, student, ERole.ROLE_USER, ERole.ROLE_MODERATOR)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("jsonstudent"))
+				.andExpect(jsonPath("$.roles[*].name").value(org.hamcrest.Matchers.containsInAnyOrder("ROLE_USER", "ROLE_MODERATOR")));
+	}
+}
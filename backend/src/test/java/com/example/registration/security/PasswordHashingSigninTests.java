@@ -0,0 +1,124 @@
+package com.example.registration.security;
+
+import com.example.registration.TestUsers;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.services.BoundedPasswordEncoder;
+import com.example.registration.service.UserStudentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A one-thread encoder with a one-slot queue; the cost is above the hashes stored below, so their logins upgrade them
+@SpringBootTest(properties = {"app.bcryptStrength=5", "app.bcryptThreads=1", "app.bcryptQueueCapacity=1",
+		"app.authRateLimitEnabled=false"})
+@AutoConfigureMockMvc
+class PasswordHashingSigninTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BoundedPasswordEncoder passwordEncoder;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Long> created = new ArrayList<>();
+
+	@AfterEach
+	void deleteUsers() {
+		created.forEach(userStudentService::deleteStudent);
+		created.clear();
+	}
+
+	@Test
+	void answersServiceUnavailableWhileEncoderIsSaturated() throws Exception {
+		save("hashbusy", new BCryptPasswordEncoder(5).encode("secret123"));
+		// Checking a cost-13 hash keeps the only thread busy long enough; a second check fills the queue
+		String slow = new BCryptPasswordEncoder(13).encode("slow");
+		CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("slow", slow));
+		waitUntil(() -> passwordEncoder.getActiveCount() == 1);
+		CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("slow", slow));
+		waitUntil(() -> passwordEncoder.getQueueDepth() == 1);
+
+		signin("hashbusy", "secret123")
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+				.andExpect(jsonPath("$.error").value("Service Busy"));
+
+		assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+		signin("hashbusy", "secret123").andExpect(status().isOk());
+	}
+
+	@Test
+	void rehashesWeakerPasswordOnSuccessfulSignin() throws Exception {
+		String weak = new BCryptPasswordEncoder(4).encode("secret123");
+		save("hashupgrade", weak);
+
+		signin("hashupgrade", "secret123").andExpect(status().isOk());
+		String upgraded = storedHash("hashupgrade");
+		assertThat(upgraded).startsWith("$2a$05$");
+		assertThat(passwordEncoder.matches("secret123", upgraded)).isTrue();
+
+		// Already at the configured cost, so the next signin leaves it alone
+		signin("hashupgrade", "secret123").andExpect(status().isOk());
+		assertThat(storedHash("hashupgrade")).isEqualTo(upgraded);
+	}
+
+	private void save(String username, String passwordHash) {
+		User user = TestUsers.save(userRepository, roleRepository, username, ERole.ROLE_USER);
+		user.setPassword(passwordHash);
+		created.add(userRepository.save(user).getId());
+	}
+
+	private ResultActions signin(String username, String password) throws Exception {
+		return mockMvc.perform(post("/api/auth/signin")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition within 5s").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	private String storedHash(String username) {
+		return jdbcTemplate.queryForObject("select password from users where username = ?", String.class, username);
+	}
+}
@@ -0,0 +1,134 @@
+package com.example.registration.security;
+
+import com.example.registration.TestUsers;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.payload.request.UpdateUserRequest;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.service.UserStudentService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tokens carrying their own claims must stop working as soon as the user's roles, credentials or existence change
+@SpringBootTest(properties = "app.jwtStatelessClaims=true")
+@AutoConfigureMockMvc
+class StatelessClaimsAuthenticationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Value("${app.jwtSecret}")
+	private String jwtSecret;
+
+	private final List<Long> created = new ArrayList<>();
+
+	@AfterEach
+	void deleteUsers() {
+		for (Long id : created) {
+			if (userRepository.existsById(id)) {
+				userStudentService.deleteStudent(id);
+			}
+		}
+	}
+
+	@Test
+	void tokenReusedAfterRoleChangeIsRejected() throws Exception {
+		User student = save("claimsrole", ERole.ROLE_USER);
+		String token = TestUsers.bearer(jwtUtils, student, ERole.ROLE_USER);
+		mockMvc.perform(get("/api/students/me").header("Authorization", token)).andExpect(status().isOk());
+
+		userStudentService.updateStudentWithRoles(student.getId(), new UpdateUserRequest(), List.of("mod"));
+
+		mockMvc.perform(get("/api/students/me").header("Authorization", token)).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/api/students/search?keyword=claimsrole").header("Authorization", token))
+				.andExpect(status().isUnauthorized());
+		String reissued = TestUsers.bearer(jwtUtils, student, ERole.ROLE_MODERATOR);
+		mockMvc.perform(get("/api/students/search?keyword=claimsrole").header("Authorization", reissued))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void tokenReusedAfterPasswordResetIsRejected() throws Exception {
+		User student = save("claimspass", ERole.ROLE_USER);
+		String token = TestUsers.bearer(jwtUtils, student, ERole.ROLE_USER);
+
+		UpdateUserRequest reset = new UpdateUserRequest();
+		reset.setPassword("changed123");
+		userStudentService.updateStudentWithRoles(student.getId(), reset, null);
+
+		mockMvc.perform(get("/api/students/me").header("Authorization", token)).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void tokenReusedAfterDeleteIsRejected() throws Exception {
+		User student = save("claimsgone", ERole.ROLE_USER);
+		String token = TestUsers.bearer(jwtUtils, student, ERole.ROLE_USER);
+		mockMvc.perform(get("/api/students/me").header("Authorization", token)).andExpect(status().isOk());
+
+		userStudentService.deleteStudent(student.getId());
+
+		mockMvc.perform(get("/api/students/me").header("Authorization", token)).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void tokenIssuedBeforeStartupIsResolvedFromDatabase() throws Exception {
+		User student = save("claimsold", ERole.ROLE_USER);
+		save("claimsother", ERole.ROLE_USER);
+		// Correctly signed, but its roles claim is out of date: the user lookup decides, not the claims
+		String token = Jwts.builder()
+				.setSubject(student.getUsername())
+				.setIssuedAt(new Date(System.currentTimeMillis() - 86_400_000))
+				.setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+				.claim("uid", student.getId())
+				.claim("email", student.getEmail())
+				.claim("roles", List.of(ERole.ROLE_ADMIN.name()))
+				.claim("ver", 0)
+				.signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), SignatureAlgorithm.HS512)
+				.compact();
+
+		mockMvc.perform(get("/api/students/me").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("claimsold"));
+		// Admins get every student; a plain user only their own row
+		mockMvc.perform(get("/api/students").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].username").value("claimsold"));
+	}
+
+	private User save(String username, ERole... roles) {
+		User user = TestUsers.save(userRepository, roleRepository, username, roles);
+		created.add(user.getId());
+		return user;
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.registration.security.jwt;
+
+import com.example.registration.security.services.TokenVersionRegistry;
+import com.example.registration.security.services.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// app.jwtStatelessClaims: principals rebuilt from uid/email/roles claims, revoked through the "ver" claim
+class JwtStatelessClaimsTests {
+
+	private static final String SECRET = "mySecretKeyForJWTTokenGenerationAndValidationPurposes1234567890abcdefghij";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry();
+	private JwtUtils jwtUtils;
+
+	@BeforeEach
+	void createJwtUtils() {
+		jwtUtils = jwtUtils(true);
+	}
+
+	@Test
+	void rebuildsPrincipalFromClaims() {
+		Claims claims = jwtUtils.parseVerifiedClaims(token(jwtUtils, 7L, "alice", "ROLE_USER", "ROLE_MODERATOR"));
+
+		UserPrincipal principal = jwtUtils.principalFromClaims(claims);
+
+		assertThat(principal.getId()).isEqualTo(7L);
+		assertThat(principal.getUsername()).isEqualTo("alice");
+		assertThat(principal.getEmail()).isEqualTo("alice@example.com");
+		assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_USER", "ROLE_MODERATOR");
+	}
+
+	@Test
+	void leavesLookupToDatabaseWhenClaimsModeIsOff() {
+		JwtUtils lookup = jwtUtils(false);
+		Claims claims = lookup.parseVerifiedClaims(token(lookup, 7L, "alice", "ROLE_USER"));
+
+		assertThat(claims.get("ver")).isNull();
+		assertThat(lookup.principalFromClaims(claims)).isNull();
+	}
+
+	@Test
+	void rejectsTokenWithStaleVersionEvenWhenCached() {
+		String token = token(jwtUtils, 7L, "alice", "ROLE_USER");
+		String other = token(jwtUtils, 8L, "bob", "ROLE_USER");
+		assertThat(jwtUtils.parseVerifiedClaims(token)).isNotNull();
+
+		// Role change, password reset or delete of user 7
+		tokenVersionRegistry.revoke(7L);
+
+		assertThat(jwtUtils.parseVerifiedClaims(token)).isNull();
+		assertThat(jwtUtils.validateJwtToken(token)).isFalse();
+		assertThat(jwtUtils.parseVerifiedClaims(other)).isNotNull();
+		assertThat(meterRegistry.counter("jwt.validation.failures", "reason", "revoked").count()).isEqualTo(2);
+
+		String reissued = token(jwtUtils, 7L, "alice", "ROLE_USER");
+		assertThat(jwtUtils.principalFromClaims(jwtUtils.parseVerifiedClaims(reissued))).isNotNull();
+	}
+
+	@Test
+	void fallsBackToLookupForTokensIssuedBeforeStartup() {
+		// Versions are in memory only, so a token from before this instance started cannot be checked against them
+		String token = Jwts.builder()
+				.setSubject("alice")
+				.setIssuedAt(new Date(System.currentTimeMillis() - 3_600_000))
+				.setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+				.claim("uid", 7L)
+				.claim("email", "alice@example.com")
+				.claim("roles", List.of("ROLE_ADMIN"))
+				.claim("ver", 0)
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+				.compact();
+		tokenVersionRegistry.revoke(7L);
+
+		Claims claims = jwtUtils.parseVerifiedClaims(token);
+
+		assertThat(claims).isNotNull();
+		assertThat(jwtUtils.principalFromClaims(claims)).isNull();
+	}
+
+	@Test
+	void rejectsTamperedClaims() {
+		String token = token(jwtUtils, 7L, "alice", "ROLE_USER");
+		String[] parts = token.split("\\.");
+		String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+		assertThat(payload).contains("\"ROLE_USER\"");
+
+		for (String forgedPayload : List.of(
+				payload.replace("\"ROLE_USER\"", "\"ROLE_ADMIN\""),
+				payload.replace("\"uid\":7", "\"uid\":8"),
+				payload.replace("\"ver\":0", "\"ver\":1"))) {
+			String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(forgedPayload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+			assertThat(jwtUtils.parseVerifiedClaims(forged)).isNull();
+		}
+		assertThat(meterRegistry.counter("jwt.validation.failures", "reason", "signature").count()).isEqualTo(3);
+	}
+
+	private JwtUtils jwtUtils(boolean statelessClaims) {
+		JwtUtils utils = new JwtUtils();
+		ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(utils, "jwtExpirationMs", 60_000);
+		ReflectionTestUtils.setField(utils, "jwtCacheMaxSize", 100L);
+		ReflectionTestUtils.setField(utils, "statelessClaims", statelessClaims);
+		ReflectionTestUtils.setField(utils, "tokenVersionRegistry", tokenVersionRegistry);
+		utils.init();
+		utils.bindTo(meterRegistry);
+		return utils;
+	}
+
+	private static String token(JwtUtils utils, Long id, String username, String... roles) {
+		List<SimpleGrantedAuthority> authorities = Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList();
+		UserPrincipal principal = new UserPrincipal(id, username, username + "@example.com", null, authorities);
+		return utils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+	}
+}
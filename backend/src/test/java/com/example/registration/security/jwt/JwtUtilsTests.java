@@ -0,0 +1,130 @@
+package com.example.registration.security.jwt;
+
+import com.example.registration.security.services.TokenVersionRegistry;
+import com.example.registration.security.services.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Verification and the verified-claims cache (keyed by token digest, kept until the token's exp)
+class JwtUtilsTests {
+
+	private static final String SECRET = "mySecretKeyForJWTTokenGenerationAndValidationPurposes1234567890abcdefghij";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private JwtUtils jwtUtils;
+
+	@BeforeEach
+	void createJwtUtils() {
+		jwtUtils = jwtUtils(60_000);
+	}
+
+	@Test
+	void acceptsValidTokenAndServesRepeatsFromCache() {
+		String token = token(jwtUtils, "alice");
+
+		Claims first = jwtUtils.parseVerifiedClaims(token);
+		Claims second = jwtUtils.parseVerifiedClaims(token);
+
+		assertThat(first.getSubject()).isEqualTo("alice");
+		assertThat(second).isSameAs(first);
+		assertThat(jwtUtils.validateJwtToken(token)).isTrue();
+		assertThat(meterRegistry.find("jwt.validation.failures").counters()).isEmpty();
+	}
+
+	@Test
+	void rejectsTamperedPayloadEvenWhenOriginalIsCached() {
+		String token = token(jwtUtils, "alice");
+		assertThat(jwtUtils.parseVerifiedClaims(token)).isNotNull();
+
+		String[] parts = token.split("\\.");
+		String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+		String forged = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.replace("alice", "admin").getBytes(StandardCharsets.UTF_8));
+		String tampered = parts[0] + "." + forged + "." + parts[2];
+
+		assertThat(jwtUtils.parseVerifiedClaims(tampered)).isNull();
+		assertThat(jwtUtils.parseVerifiedClaims(tampered)).isNull();
+		assertThat(failures("signature")).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsTokenSignedWithAnotherKey() {
+		String foreign = Jwts.builder()
+				.setSubject("alice")
+				.setIssuedAt(new Date())
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor((SECRET + "-other").getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+				.compact();
+
+		assertThat(jwtUtils.parseVerifiedClaims(foreign)).isNull();
+		assertThat(failures("signature")).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsExpiredTokenWithoutCachingIt() {
+		JwtUtils expiring = jwtUtils(-1_000);
+		String token = token(expiring, "alice");
+
+		assertThat(expiring.parseVerifiedClaims(token)).isNull();
+		assertThat(expiring.parseVerifiedClaims(token)).isNull();
+		assertThat(failures("expired")).isEqualTo(2);
+	}
+
+	@Test
+	void dropsCachedClaimsOnceTokenExpires() throws InterruptedException {
+		JwtUtils shortLived = jwtUtils(1_500);
+		String token = token(shortLived, "alice");
+		assertThat(shortLived.parseVerifiedClaims(token)).isNotNull();
+
+		// exp has whole-second precision, so the token is gone within 1.5 s
+		Thread.sleep(2_100);
+
+		assertThat(shortLived.parseVerifiedClaims(token)).isNull();
+		assertThat(failures("expired")).isEqualTo(1);
+	}
+
+	@Test
+	void countsMalformedAndEmptyTokens() {
+		assertThat(jwtUtils.parseVerifiedClaims("not-a-token")).isNull();
+		assertThat(jwtUtils.parseVerifiedClaims("")).isNull();
+
+		assertThat(failures("malformed")).isEqualTo(1);
+		assertThat(failures("empty")).isEqualTo(1);
+	}
+
+	private JwtUtils jwtUtils(int expirationMs) {
+		JwtUtils utils = new JwtUtils();
+		ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+		ReflectionTestUtils.setField(utils, "jwtCacheMaxSize", 100L);
+		ReflectionTestUtils.setField(utils, "tokenVersionRegistry", new TokenVersionRegistry());
+		utils.init();
+		utils.bindTo(meterRegistry);
+		return utils;
+	}
+
+	private static String token(JwtUtils utils, String username) {
+		List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+		UserPrincipal principal = new UserPrincipal(1L, username, username + "@example.com", null, authorities);
+		return utils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+	}
+
+	private double failures(String reason) {
+		return meterRegistry.counter("jwt.validation.failures", "reason", reason).count();
+	}
+}
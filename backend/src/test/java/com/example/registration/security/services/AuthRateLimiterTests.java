@@ -0,0 +1,129 @@
+package com.example.registration.security.services;
+
+import com.example.registration.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthRateLimiterTests {
+
+	private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+	// 60 per minute = one token per second per IP, bursts of 5; 6 per minute per username, bursts of 2
+	private final AuthRateLimiter limiter = new AuthRateLimiter(true, 60, 5, 6, 2, 1000, now::get);
+
+	@Test
+	void allowsBurstThenRejects() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check("10.0.0.1", null);
+		}
+		assertThatThrownBy(() -> limiter.check("10.0.0.1", null))
+				.isInstanceOf(RateLimitExceededException.class)
+				.satisfies(e -> assertThat(((RateLimitExceededException) e).getRetryAfterSeconds()).isEqualTo(1));
+	}
+
+	@Test
+	void refillsOneTokenPerInterval() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check("10.0.0.1", null);
+		}
+		advance(999);
+		assertRejected("10.0.0.1", null);
+
+		advance(1);
+		limiter.check("10.0.0.1", null);
+		assertRejected("10.0.0.1", null);
+
+		advance(2_000);
+		limiter.check("10.0.0.1", null);
+		limiter.check("10.0.0.1", null);
+		assertRejected("10.0.0.1", null);
+	}
+
+	@Test
+	void idleBucketRefillsOnlyUpToBurst() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check("10.0.0.1", null);
+		}
+		advance(60_000);
+		for (int i = 0; i < 5; i++) {
+			limiter.check("10.0.0.1", null);
+		}
+		assertRejected("10.0.0.1", null);
+	}
+
+	@Test
+	void rejectedAttemptsDoNotConsumeTokens() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check("10.0.0.1", null);
+		}
+		for (int i = 0; i < 10; i++) {
+			assertRejected("10.0.0.1", null);
+		}
+		advance(1_000);
+		limiter.check("10.0.0.1", null);
+	}
+
+	@Test
+	void usernameBucketIsSharedAcrossClientsAndCaseInsensitive() {
+		limiter.check("10.0.0.1", "alice");
+		limiter.check("10.0.0.2", " Alice ");
+		assertThatThrownBy(() -> limiter.check("10.0.0.3", "ALICE"))
+				.isInstanceOf(RateLimitExceededException.class)
+				.satisfies(e -> assertThat(((RateLimitExceededException) e).getRetryAfterSeconds()).isEqualTo(10));
+
+		limiter.check("10.0.0.3", "bob");
+		advance(10_000);
+		limiter.check("10.0.0.4", "alice");
+	}
+
+	@Test
+	void clientBucketIgnoresCaseAndWhitespace() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check(i % 2 == 0 ? "2001:DB8::1" : " 2001:db8::1 ", null);
+		}
+		assertRejected("2001:db8::1", null);
+		for (int i = 0; i < 5; i++) {
+			limiter.checkLookup(i % 2 == 0 ? "2001:DB8::1" : "2001:db8::1");
+		}
+		assertThatThrownBy(() -> limiter.checkLookup(" 2001:Db8::1")).isInstanceOf(RateLimitExceededException.class);
+	}
+
+	@Test
+	void bucketKeysAreNormalized() {
+		assertThat(AuthRateLimiter.bucketKey("username", " Alice\t")).isEqualTo("username:alice");
+		assertThat(AuthRateLimiter.bucketKey("ip", "2001:DB8::1")).isEqualTo("ip:2001:db8::1");
+		assertThat(AuthRateLimiter.bucketKey("ip", null)).isEqualTo("ip:");
+	}
+
+	@Test
+	void lookupBucketIsSeparateFromSigninBucket() {
+		for (int i = 0; i < 5; i++) {
+			limiter.checkLookup("10.0.0.1");
+		}
+		assertThatThrownBy(() -> limiter.checkLookup("10.0.0.1")).isInstanceOf(RateLimitExceededException.class);
+		assertThatCode(() -> limiter.check("10.0.0.1", null)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void disabledLimiterNeverRejects() {
+		AuthRateLimiter disabled = new AuthRateLimiter(false, 1, 1, 1, 1, 1000, now::get);
+		for (int i = 0; i < 100; i++) {
+			disabled.check("10.0.0.1", "alice");
+			disabled.checkLookup("10.0.0.1");
+		}
+	}
+
+	private void advance(long millis) {
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	private void assertRejected(String clientIp, String username) {
+		assertThatThrownBy(() -> limiter.check(clientIp, username)).isInstanceOf(RateLimitExceededException.class);
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.registration.security.services;
+
+import com.example.registration.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private BoundedPasswordEncoder encoder;
+
+	@AfterEach
+	void shutdown() {
+		if (encoder != null) {
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void encodesAndMatchesOnPool() throws Exception {
+		encoder = new BoundedPasswordEncoder(4, 2, 4, registry);
+
+		String hash = encoder.encode("secret123");
+
+		assertThat(hash).startsWith("$2a$04$");
+		assertThat(encoder.matches("secret123", hash)).isTrue();
+		assertThat(encoder.matches("wrong", hash)).isFalse();
+		assertThat(encoder.matches("secret123", encoder.encodeAsync("secret123").get())).isTrue();
+		assertThat(registry.get("bcrypt.hash").tag("operation", "encode").timer().count()).isEqualTo(2);
+		assertThat(registry.get("bcrypt.hash").tag("operation", "matches").timer().count()).isEqualTo(3);
+		assertThat(registry.get("bcrypt.strength").gauge().value()).isEqualTo(4);
+	}
+
+	@Test
+	void rejectsWhenThreadAndQueueAreTaken() {
+		encoder = new BoundedPasswordEncoder(13, 1, 1, registry);
+
+		// One hash runs, one waits; the queue holds nothing more
+		CompletableFuture<String> running = encoder.encodeAsync("first");
+		CompletableFuture<String> queued = encoder.encodeAsync("second");
+
+		assertThatThrownBy(() -> encoder.encodeAsync("third"))
+				.isInstanceOf(ServiceBusyException.class)
+				.hasMessageContaining("Too many password operations");
+		assertThatThrownBy(() -> encoder.encode("third"))
+				.isInstanceOf(ServiceBusyException.class);
+		assertThatThrownBy(() -> encoder.matches("third", "$2a$04$abcdefghijklmnopqrstuu5s2v8.iXieOjg/.AySBTTZIIVFJeBve"))
+				.isInstanceOf(ServiceBusyException.class);
+		assertThat(encoder.getQueueDepth()).isEqualTo(1);
+		assertThat(registry.get("bcrypt.queue.depth").gauge().value()).isEqualTo(1);
+
+		// Rejected calls never took a slot, the accepted ones still complete
+		String first = running.join();
+		String second = queued.join();
+		assertThat(encoder.matches("first", first)).isTrue();
+		assertThat(encoder.matches("second", second)).isTrue();
+	}
+
+	@Test
+	void upgradesHashesWithLowerCost() {
+		encoder = new BoundedPasswordEncoder(5, 1, 1, registry);
+
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret123"))).isTrue();
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret123"))).isFalse();
+		assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret123"))).isFalse();
+	}
+}
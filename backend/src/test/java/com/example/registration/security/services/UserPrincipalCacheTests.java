@@ -0,0 +1,101 @@
+package com.example.registration.security.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserPrincipalCacheTests {
+
+	private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+	private final UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 100, 300);
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void loadsOncePerUsername() {
+		when(userDetailsService.loadUserByUsername("ada")).thenReturn(principal(1L, "ada", "ROLE_USER"));
+
+		UserPrincipal first = cache.get("ada");
+		UserPrincipal second = cache.get("ada");
+
+		assertThat(second).isSameAs(first);
+		verify(userDetailsService, times(1)).loadUserByUsername("ada");
+		assertThat(cache.hitCount()).isEqualTo(1);
+		assertThat(cache.missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotCacheUnknownUsers() {
+		when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+		assertThatThrownBy(() -> cache.get("ghost")).isInstanceOf(UsernameNotFoundException.class);
+		assertThatThrownBy(() -> cache.get("ghost")).isInstanceOf(UsernameNotFoundException.class);
+
+		verify(userDetailsService, times(2)).loadUserByUsername("ghost");
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void evictsAgainAfterCommit() {
+		when(userDetailsService.loadUserByUsername("ada"))
+				.thenReturn(principal(1L, "ada", "ROLE_USER"))
+				.thenReturn(principal(1L, "ada", "ROLE_USER"))
+				.thenReturn(principal(1L, "ada", "ROLE_USER", "ROLE_MODERATOR"));
+		cache.get("ada");
+
+		TransactionSynchronizationManager.initSynchronization();
+		cache.evict("ada", null);
+		// A request racing the transaction reloads the row as it was before the commit
+		assertThat(cache.get("ada").getAuthorities()).hasSize(1);
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(cache.get("ada").getAuthorities()).extracting(authority -> authority.getAuthority())
+				.containsExactly("ROLE_USER", "ROLE_MODERATOR");
+		verify(userDetailsService, times(3)).loadUserByUsername("ada");
+	}
+
+	@Test
+	void evictsEveryoneForBulkChanges() {
+		when(userDetailsService.loadUserByUsername("ada")).thenReturn(principal(1L, "ada", "ROLE_USER"));
+		when(userDetailsService.loadUserByUsername("grace")).thenReturn(principal(2L, "grace", "ROLE_USER"));
+		cache.get("ada");
+		cache.get("grace");
+
+		TransactionSynchronizationManager.initSynchronization();
+		cache.evictAll();
+		cache.get("ada");
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		assertThat(cache.size()).isZero();
+		cache.get("ada");
+		cache.get("grace");
+		verify(userDetailsService, times(3)).loadUserByUsername("ada");
+		verify(userDetailsService, times(2)).loadUserByUsername("grace");
+	}
+
+	private static UserPrincipal principal(Long id, String username, String... roles) {
+		List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+		for (String role : roles) {
+			authorities.add(new SimpleGrantedAuthority(role));
+		}
+		return new UserPrincipal(id, username, username + "@example.com", "hash", authorities);
+	}
+}
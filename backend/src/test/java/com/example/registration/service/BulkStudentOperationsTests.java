@@ -0,0 +1,229 @@
+package com.example.registration.service;
+
+import com.example.registration.exception.BulkOperationException;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.payload.request.BulkStudentRequest;
+import com.example.registration.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+// More students than one statement takes, so every bulk operation has to split its id list
+@SpringBootTest
+class BulkStudentOperationsTests {
+
+	private static final int STUDENTS = 1205;
+	private static final LocalDate FIRST_ENROLLMENT = LocalDate.of(1990, 1, 1);
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@SpyBean
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StudentSearchIndex studentSearchIndex;
+
+	@Autowired
+	private EnrollmentStatistics enrollmentStatistics;
+
+	@Autowired
+	private StudentCounter studentCounter;
+
+	@Autowired
+	private TakenNames takenNames;
+
+	@Autowired
+	private UserCacheInvalidator userCacheInvalidator;
+
+	private List<Long> students;
+	private Long admin;
+
+	@BeforeEach
+	void insertStudents() {
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < STUDENTS; i++) {
+			rows.add(new Object[] {String.format("bulkstud%04d", i), "bulkstud" + i + "@example.com", "Bulk Student " + i,
+					Date.valueOf(FIRST_ENROLLMENT.plusDays(i % 300))});
+		}
+		jdbcTemplate.batchUpdate("insert into users (username, email, password, full_name, enrollment_date, is_active) "
+				+ "values (?, ?, 'x', ?, ?, true)", rows);
+		jdbcTemplate.update("insert into users (username, email, password, full_name, enrollment_date, is_active) "
+				+ "values ('bulkadmin', 'bulkadmin@example.com', 'x', 'Bulk Admin', date '1990-02-01', true)");
+		jdbcTemplate.update("insert into user_roles (user_id, role_id) select u.id, r.id from users u, roles r "
+				+ "where u.username like 'bulk%' and r.name = ?", ERole.ROLE_USER.name());
+		jdbcTemplate.update("insert into user_roles (user_id, role_id) select u.id, r.id from users u, roles r "
+				+ "where u.username = 'bulkadmin' and r.name = ?", ERole.ROLE_ADMIN.name());
+
+		students = jdbcTemplate.queryForList("select id from users where username like 'bulkstud%' order by id", Long.class);
+		admin = jdbcTemplate.queryForObject("select id from users where username = 'bulkadmin'", Long.class);
+		rebuildDerivedState();
+		clearInvocations(userRepository);
+	}
+
+	@AfterEach
+	void deleteStudents() {
+		jdbcTemplate.update("delete from user_roles where user_id in (select id from users where username like 'bulk%')");
+		jdbcTemplate.update("delete from users where username like 'bulk%'");
+		rebuildDerivedState();
+	}
+
+	@Test
+	void deletesInChunksAndUpdatesDerivedStateAfterCommit() {
+		long countBefore = studentCounter.get();
+		assertThat(studentSearchIndex.search("bulkstud0001")).hasSize(1);
+		assertThat(takenNames.isUsernameTaken("bulkstud0001")).isTrue();
+
+		Map<String, Object> summary = userStudentService.bulkDeleteStudents(byIds(students));
+
+		assertThat(summary).containsEntry("matched", STUDENTS).containsEntry("affected", STUDENTS);
+		assertStatementsPartitioned(captureDeleteChunks());
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where username like 'bulk%'", Long.class)).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("select count(*) from user_roles ur join users u on u.id = ur.user_id "
+				+ "where u.username like 'bulkstud%'", Long.class)).isZero();
+
+		assertThat(studentCounter.get()).isEqualTo(countBefore - STUDENTS).isEqualTo(userRepository.countStudents());
+		assertThat(studentSearchIndex.search("bulkstud")).isEmpty();
+		assertThat(takenNames.isUsernameTaken("bulkstud0001")).isFalse();
+		assertThat(takenNames.isEmailTaken("bulkstud1@example.com")).isFalse();
+		assertStatisticsMatchRebuild();
+	}
+
+	@Test
+	void updatesStatusAndRolesInChunks() {
+		Map<String, Object> status = userStudentService.bulkUpdateStatus(byIds(students, false));
+		assertThat(status).containsEntry("operation", "deactivate").containsEntry("affected", STUDENTS);
+		ArgumentCaptor<Collection<Long>> statusChunks = chunkCaptor();
+		verify(userRepository, atLeastOnce()).updateActive(statusChunks.capture(), eq(false), any());
+		assertStatementsPartitioned(statusChunks.getAllValues());
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where username like 'bulkstud%' and is_active = false",
+				Long.class)).isEqualTo(STUDENTS);
+		assertStatisticsMatchRebuild();
+
+		BulkStudentRequest addModerator = byIds(students);
+		addModerator.setRoles(List.of("MODERATOR"));
+		Map<String, Object> roles = userStudentService.bulkUpdateRoles(addModerator);
+		assertThat(roles).containsEntry("operation", "roles:add").containsEntry("affected", STUDENTS);
+		ArgumentCaptor<Collection<Long>> roleChunks = chunkCaptor();
+		verify(userRepository, atLeastOnce()).insertRoles(roleChunks.capture(), any());
+		assertStatementsPartitioned(roleChunks.getAllValues());
+		assertThat(roles(students.get(STUDENTS - 1))).containsExactlyInAnyOrder("ROLE_USER", "ROLE_MODERATOR");
+		assertStatisticsMatchRebuild();
+	}
+
+	@Test
+	void rejectsAdminsSelectedById() {
+		List<Long> withAdmin = List.of(students.get(0), admin);
+
+		assertThatThrownBy(() -> userStudentService.bulkDeleteStudents(byIds(withAdmin)))
+				.isInstanceOf(BulkOperationException.class)
+				.hasMessage("1 of 2 students are administrators, nothing was changed")
+				.satisfies(e -> assertThat(((BulkOperationException) e).getErrors())
+						.containsExactly("Student " + admin + " is an administrator and cannot be changed in bulk"));
+		assertThatThrownBy(() -> userStudentService.bulkUpdateStatus(byIds(withAdmin, false)))
+				.isInstanceOf(BulkOperationException.class);
+		BulkStudentRequest demote = byIds(withAdmin);
+		demote.setRoles(List.of("ADMIN"));
+		demote.setRoleMode("remove");
+		assertThatThrownBy(() -> userStudentService.bulkUpdateRoles(demote))
+				.isInstanceOf(BulkOperationException.class);
+
+		// Nothing happened to the student selected next to the admin either
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where id in (?, ?) and is_active = true",
+				Long.class, students.get(0), admin)).isEqualTo(2);
+		assertThat(roles(admin)).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+	}
+
+	@Test
+	void leavesAdminsOutOfDateRanges() {
+		BulkStudentRequest range = new BulkStudentRequest();
+		range.setEnrolledFrom(FIRST_ENROLLMENT);
+		range.setEnrolledTo(FIRST_ENROLLMENT.plusYears(1));
+		range.setRoleMode("set");
+		assertThat(userStudentService.bulkUpdateRoles(range)).containsEntry("matched", STUDENTS);
+		assertThat(roles(admin)).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+		assertThat(roles(students.get(0))).isEmpty();
+
+		range.setActive(false);
+		assertThat(userStudentService.bulkUpdateStatus(range)).containsEntry("matched", STUDENTS);
+		assertThat(userStudentService.bulkDeleteStudents(range)).containsEntry("affected", STUDENTS);
+
+		assertThat(jdbcTemplate.queryForObject("select is_active from users where id = ?", Boolean.class, admin)).isTrue();
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where username like 'bulk%'", Long.class)).isEqualTo(1);
+		assertStatisticsMatchRebuild();
+	}
+
+	private void rebuildDerivedState() {
+		userCacheInvalidator.evictUserLookups();
+		List<User> all = userRepository.findAllStudents();
+		studentSearchIndex.rebuild(all);
+		enrollmentStatistics.rebuild(all);
+		studentCounter.reset();
+		takenNames.rebuild();
+	}
+
+	// The incrementally maintained statistics must equal what a full reload computes
+	private void assertStatisticsMatchRebuild() {
+		Map<String, Object> incremental = enrollmentStatistics.snapshot();
+		enrollmentStatistics.rebuild(userRepository.findAllStudents());
+		assertThat(incremental).isEqualTo(enrollmentStatistics.snapshot());
+	}
+
+	private List<Collection<Long>> captureDeleteChunks() {
+		ArgumentCaptor<Collection<Long>> chunks = chunkCaptor();
+		verify(userRepository, atLeastOnce()).deleteByIdIn(chunks.capture());
+		return chunks.getAllValues();
+	}
+
+	private void assertStatementsPartitioned(List<Collection<Long>> chunks) {
+		assertThat(chunks).hasSize(2);
+		assertThat(chunks.get(0)).hasSize(1000);
+		assertThat(chunks.get(1)).hasSize(STUDENTS - 1000);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ArgumentCaptor<Collection<Long>> chunkCaptor() {
+		return ArgumentCaptor.forClass(Collection.class);
+	}
+
+	private List<String> roles(Long id) {
+		return jdbcTemplate.queryForList("select r.name from roles r join user_roles ur on ur.role_id = r.id where ur.user_id = ?",
+				String.class, id);
+	}
+
+	private static BulkStudentRequest byIds(List<Long> ids) {
+		BulkStudentRequest request = new BulkStudentRequest();
+		request.setIds(ids);
+		return request;
+	}
+
+	private static BulkStudentRequest byIds(List<Long> ids, boolean active) {
+		BulkStudentRequest request = byIds(ids);
+		request.setActive(active);
+		return request;
+	}
+}
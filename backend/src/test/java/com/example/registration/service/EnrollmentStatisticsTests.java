@@ -0,0 +1,111 @@
+package com.example.registration.service;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnrollmentStatisticsTests {
+
+	private final EnrollmentStatistics statistics = new EnrollmentStatistics();
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void countsByYearMonthRoleAndStatus() {
+		statistics.rebuild(List.of(
+				student(1L, LocalDate.of(2023, 9, 1), true, ERole.ROLE_USER),
+				student(2L, LocalDate.of(2023, 9, 15), false, ERole.ROLE_USER, ERole.ROLE_MODERATOR),
+				student(3L, LocalDate.of(2024, 2, 1), true)));
+
+		Map<String, Object> snapshot = statistics.snapshot();
+
+		assertThat(snapshot).containsEntry("total", 3L).containsEntry("active", 2L).containsEntry("inactive", 1L);
+		assertThat(snapshot.get("byYear")).isEqualTo(Map.of("2023", 2L, "2024", 1L));
+		assertThat(snapshot.get("byMonth")).isEqualTo(Map.of("2023-09", 2L, "2024-02", 1L));
+		assertThat(snapshot.get("byRole")).isEqualTo(Map.of("ROLE_USER", 2L, "ROLE_MODERATOR", 1L, "ROLE_ADMIN", 0L));
+	}
+
+	@Test
+	void incrementalUpdatesMatchRebuild() {
+		statistics.rebuild(List.of(
+				student(1L, LocalDate.of(2023, 9, 1), true, ERole.ROLE_USER),
+				student(2L, LocalDate.of(2023, 9, 15), true, ERole.ROLE_USER),
+				student(3L, LocalDate.of(2024, 2, 1), true, ERole.ROLE_USER)));
+
+		statistics.index(student(4L, LocalDate.of(2024, 5, 1), true, ERole.ROLE_USER));
+		// Re-indexing moves the student to another month instead of counting it twice
+		statistics.index(student(1L, LocalDate.of(2022, 1, 10), true, ERole.ROLE_USER));
+		statistics.remove(3L);
+		statistics.remove(99L);
+		statistics.updateActive(List.of(2L, 4L, 99L), false);
+		statistics.updateRoles(List.of(1L, 2L), "add", Set.of(ERole.ROLE_MODERATOR));
+		statistics.updateRoles(List.of(2L), "remove", Set.of(ERole.ROLE_USER));
+		statistics.updateRoles(List.of(4L), "set", Set.of(ERole.ROLE_ADMIN));
+		// A user without a student profile is not counted
+		User admin = new User("admin", "admin@example.com", "secret");
+		admin.setId(5L);
+		statistics.index(admin);
+		Map<String, Object> incremental = statistics.snapshot();
+
+		statistics.rebuild(List.of(
+				student(1L, LocalDate.of(2022, 1, 10), true, ERole.ROLE_USER, ERole.ROLE_MODERATOR),
+				student(2L, LocalDate.of(2023, 9, 15), false, ERole.ROLE_MODERATOR),
+				student(4L, LocalDate.of(2024, 5, 1), false, ERole.ROLE_ADMIN),
+				admin));
+
+		assertThat(incremental).isEqualTo(statistics.snapshot());
+		assertThat(incremental.get("byMonth")).isEqualTo(Map.of("2022-01", 1L, "2023-09", 1L, "2024-05", 1L));
+	}
+
+	@Test
+	void appliesUpdatesOnlyAfterCommit() {
+		statistics.rebuild(List.of(student(1L, LocalDate.of(2023, 9, 1), true, ERole.ROLE_USER)));
+		TransactionSynchronizationManager.initSynchronization();
+
+		statistics.index(student(2L, LocalDate.of(2024, 2, 1), true, ERole.ROLE_USER));
+		statistics.updateActive(List.of(1L), false);
+		assertThat(statistics.snapshot()).containsEntry("total", 1L).containsEntry("active", 1L);
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(statistics.snapshot()).containsEntry("total", 2L).containsEntry("active", 1L).containsEntry("inactive", 1L);
+	}
+
+	@Test
+	void discardsUpdatesOfRolledBackTransaction() {
+		statistics.rebuild(List.of(student(1L, LocalDate.of(2023, 9, 1), true, ERole.ROLE_USER)));
+		TransactionSynchronizationManager.initSynchronization();
+
+		statistics.remove(1L);
+		statistics.updateRoles(List.of(1L), "set", Set.of());
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertThat(statistics.snapshot()).containsEntry("total", 1L);
+		assertThat(((Map<?, ?>) statistics.snapshot().get("byRole")).get("ROLE_USER")).isEqualTo(1L);
+	}
+
+	private static User student(Long id, LocalDate enrolled, boolean active, ERole... roles) {
+		User user = new User("student" + id, "student" + id + "@example.com", "secret", "Student " + id, enrolled);
+		user.setId(id);
+		user.setIsActive(active);
+		user.setRoles(Arrays.stream(roles).map(Role::new).collect(Collectors.toSet()));
+		return user;
+	}
+}
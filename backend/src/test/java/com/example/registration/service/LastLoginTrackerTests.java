@@ -0,0 +1,138 @@
+package com.example.registration.service;
+
+import com.example.registration.TestUsers;
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.repository.RoleRepository;
+import com.example.registration.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class LastLoginTrackerTests {
+
+	@Autowired
+	private LastLoginTracker lastLoginTracker;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Long> created = new ArrayList<>();
+
+	@AfterEach
+	void deleteUsers() {
+		created.forEach(userStudentService::deleteStudent);
+		created.clear();
+	}
+
+	@Test
+	void flushWritesBufferedLogins() {
+		User first = save("loginfirst");
+		User second = save("loginsecond");
+		User idle = save("loginidle");
+		LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+		lastLoginTracker.record(first.getId());
+		lastLoginTracker.record(second.getId());
+		lastLoginTracker.record(first.getId());
+		assertThat(lastLogin(first)).isNull();
+
+		lastLoginTracker.flush();
+
+		assertThat(lastLogin(first)).isAfter(before);
+		assertThat(lastLogin(second)).isAfter(before);
+		assertThat(lastLogin(idle)).isNull();
+		// The flush evicts the cached entities, so JPA reads see the new value too
+		assertThat(userRepository.findById(first.getId()).orElseThrow().getLastLogin()).isEqualTo(lastLogin(first));
+	}
+
+	@Test
+	void requeuesBatchThatFailed() {
+		JdbcTemplate failing = mock(JdbcTemplate.class);
+		UserCacheInvalidator invalidator = mock(UserCacheInvalidator.class);
+		when(failing.batchUpdate(anyString(), anyList()))
+				.thenThrow(new DataAccessResourceFailureException("database down"))
+				.thenReturn(new int[] {1, 1});
+		LastLoginTracker tracker = new LastLoginTracker(failing, invalidator);
+
+		tracker.record(1L);
+		tracker.record(2L);
+		tracker.flush();
+		verifyNoInteractions(invalidator);
+
+		// A signin after the failure is newer than the re-queued timestamp and wins
+		LocalDateTime failedAt = LocalDateTime.now();
+		tracker.record(2L);
+		tracker.flush();
+
+		List<Object[]> retried = lastBatch(failing, 2);
+		assertThat(retried).extracting(row -> row[1]).containsExactlyInAnyOrder(1L, 2L);
+		Timestamp second = (Timestamp) retried.stream().filter(row -> row[1].equals(2L)).findFirst().orElseThrow()[0];
+		assertThat(second.toLocalDateTime()).isAfterOrEqualTo(failedAt);
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Collection<Long>> evicted = ArgumentCaptor.forClass(Collection.class);
+		verify(invalidator).evictUsers(evicted.capture());
+		assertThat(evicted.getValue()).containsExactlyInAnyOrder(1L, 2L);
+
+		// Nothing left to write afterwards
+		tracker.flush();
+		verify(failing, times(2)).batchUpdate(anyString(), anyList());
+	}
+
+	@Test
+	void skipsEmptyFlush() {
+		JdbcTemplate jdbc = mock(JdbcTemplate.class);
+		new LastLoginTracker(jdbc, mock(UserCacheInvalidator.class)).flush();
+
+		verify(jdbc, never()).batchUpdate(anyString(), anyList());
+	}
+
+	private User save(String username) {
+		User user = TestUsers.save(userRepository, roleRepository, username, ERole.ROLE_USER);
+		created.add(user.getId());
+		return user;
+	}
+
+	private LocalDateTime lastLogin(User user) {
+		Timestamp lastLogin = jdbcTemplate.queryForObject("select last_login from users where id = ?", Timestamp.class, user.getId());
+		return lastLogin == null ? null : lastLogin.toLocalDateTime();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object[]> lastBatch(JdbcTemplate jdbc, int calls) {
+		ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+		verify(jdbc, times(calls)).batchUpdate(eq("update users set last_login = ? where id = ?"), batches.capture());
+		return batches.getValue();
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.registration.service;
+
+import com.example.registration.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StudentCounterTests {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final StudentCounter counter = new StudentCounter(userRepository);
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void resetsFromDatabase() {
+		when(userRepository.countStudents()).thenReturn(42L);
+
+		counter.reset();
+
+		assertThat(counter.get()).isEqualTo(42);
+	}
+
+	@Test
+	void appliesChangesOnlyAfterCommit() {
+		counter.added(3);
+		assertThat(counter.get()).isEqualTo(3);
+
+		TransactionSynchronizationManager.initSynchronization();
+		counter.added(5);
+		counter.removed(1);
+		assertThat(counter.get()).isEqualTo(3);
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(counter.get()).isEqualTo(7);
+	}
+
+	@Test
+	void discardsChangesOfRolledBackTransaction() {
+		TransactionSynchronizationManager.initSynchronization();
+		counter.added(5);
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertThat(counter.get()).isZero();
+	}
+
+	@Test
+	void reconcileCorrectsDrift() {
+		counter.added(10);
+		when(userRepository.countStudents()).thenReturn(12L);
+
+		counter.reconcile();
+
+		assertThat(counter.get()).isEqualTo(12);
+	}
+
+	@Test
+	void reconcileSkipsRoundWhenWriteLandsWhileCounting() {
+		counter.added(10);
+		// The database is off by more than the write that commits before the compare-and-set
+		doAnswer(invocation -> {
+			counter.added(1);
+			return 20L;
+		}).when(userRepository).countStudents();
+
+		counter.reconcile();
+		assertThat(counter.get()).isEqualTo(11);
+
+		// Nothing lands during the next round, so it catches up
+		doReturn(20L).when(userRepository).countStudents();
+		counter.reconcile();
+		assertThat(counter.get()).isEqualTo(20);
+	}
+}
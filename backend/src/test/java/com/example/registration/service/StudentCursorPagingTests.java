@@ -0,0 +1,163 @@
+package com.example.registration.service;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+import com.example.registration.payload.response.CursorPageResponse;
+import com.example.registration.payload.response.StudentSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class StudentCursorPagingTests {
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Ids of the students inserted for this test, newest first
+	private List<Long> seeded;
+
+	@BeforeEach
+	void insertStudents() {
+		for (int i = 1; i <= 7; i++) {
+			jdbcTemplate.update("insert into users (username, email, password, full_name, enrollment_date, is_active) "
+					+ "values (?, ?, 'x', ?, date '2024-01-01', true)", "page" + i, "page" + i + "@example.com", "Page Student " + i);
+			if (i == 4) {
+				// A deleted student leaves a gap in the ids that paging must not mistake for the end
+				jdbcTemplate.update("insert into users (username, email, password, full_name, enrollment_date, is_active) "
+						+ "values ('pagegone', 'pagegone@example.com', 'x', 'Gone', date '2024-01-01', true)");
+				jdbcTemplate.update("delete from users where username = 'pagegone'");
+			}
+		}
+		jdbcTemplate.update("insert into user_roles (user_id, role_id) select u.id, r.id from users u, roles r "
+				+ "where u.username like 'page%' and r.name = ?", ERole.ROLE_USER.name());
+		seeded = jdbcTemplate.queryForList("select id from users where username like 'page%' order by id desc", Long.class);
+	}
+
+	@AfterEach
+	void deleteStudents() {
+		jdbcTemplate.update("delete from user_roles where user_id in (select id from users where username like 'page%')");
+		jdbcTemplate.update("delete from users where username like 'page%'");
+	}
+
+	@Test
+	void walksEveryStudentOnceNewestFirst() {
+		List<Long> walked = new ArrayList<>();
+		Long cursor = null;
+		int pages = 0;
+		do {
+			CursorPageResponse<?> page = userStudentService.getStudentsAfter(cursor, 3, StudentFields.ENTITY);
+			assertThat(page.getLimit()).isEqualTo(3);
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(3);
+			List<Long> ids = ids(page, item -> ((User) item).getId());
+			if (page.getNextCursor() != null) {
+				assertThat(ids).hasSize(3);
+				assertThat(page.getNextCursor()).isEqualTo(ids.get(2));
+			}
+			walked.addAll(ids);
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null && pages < 100);
+
+		assertThat(cursor).isNull();
+		assertThat(walked).doesNotHaveDuplicates().isSortedAccordingTo((a, b) -> Long.compare(b, a));
+		assertThat(walked).containsAll(seeded);
+	}
+
+	@Test
+	void startsBelowCursor() {
+		CursorPageResponse<?> first = userStudentService.getStudentsAfter(seeded.get(0) + 1, 3, StudentFields.SUMMARY);
+		assertThat(ids(first, item -> ((StudentSummary) item).getId())).isEqualTo(seeded.subList(0, 3));
+		assertThat(first.getNextCursor()).isEqualTo(seeded.get(2));
+
+		// The gap left by the deleted student between page5 and page4 does not shorten the page
+		CursorPageResponse<?> second = userStudentService.getStudentsAfter(first.getNextCursor(), 3, StudentFields.SUMMARY);
+		assertThat(ids(second, item -> ((StudentSummary) item).getId())).isEqualTo(seeded.subList(3, 6));
+		assertThat(second.getNextCursor()).isEqualTo(seeded.get(5));
+	}
+
+	@Test
+	void lastFullPageHasNoCursor() {
+		List<Long> students = jdbcTemplate.queryForList("select id from users order by id desc", Long.class);
+		// Exactly three students remain below this cursor
+		Long cursor = students.get(students.size() - 4);
+
+		CursorPageResponse<?> page = userStudentService.getStudentsAfter(cursor, 3, StudentFields.SUMMARY);
+
+		assertThat(ids(page, item -> ((StudentSummary) item).getId())).isEqualTo(students.subList(students.size() - 3, students.size()));
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void pagesSelectedColumns() {
+		Long after = seeded.get(0) + 1;
+
+		CursorPageResponse<?> columns = userStudentService.getStudentsAfter(after, 2, StudentFields.parse("username,isActive"));
+		assertThat(columns.getItems()).isEqualTo(List.of(
+				Map.of("id", seeded.get(0), "username", "page7", "isActive", true),
+				Map.of("id", seeded.get(1), "username", "page6", "isActive", true)));
+		assertThat(columns.getNextCursor()).isEqualTo(seeded.get(1));
+
+		CursorPageResponse<?> withRoles = userStudentService.getStudentsAfter(after, 2, StudentFields.parse("roles"));
+		assertThat(ids(withRoles, item -> (Long) ((Map<?, ?>) item).get("id"))).isEqualTo(seeded.subList(0, 2));
+		assertThat(withRoles.getItems()).allSatisfy(item ->
+				assertThat(((Map<?, ?>) item).get("roles").toString()).contains(ERole.ROLE_USER.name()));
+	}
+
+	@Test
+	void selectsRolesAlongsideColumns() {
+		jdbcTemplate.update("insert into user_roles (user_id, role_id) select ?, id from roles where name = ?",
+				seeded.get(0), ERole.ROLE_MODERATOR.name());
+		jdbcTemplate.update("delete from user_roles where user_id = ?", seeded.get(1));
+		StudentFields fields = StudentFields.parse("roles,username");
+
+		CursorPageResponse<?> page = userStudentService.getStudentsAfter(seeded.get(0) + 1, 3, fields);
+		List<Map<?, ?>> rows = page.getItems().stream().map(item -> (Map<?, ?>) item).collect(Collectors.toList());
+		assertThat(List.copyOf(rows.get(0).keySet())).isEqualTo(List.of("id", "roles", "username"));
+		assertThat(roleNames(rows.get(0))).containsExactlyInAnyOrder(ERole.ROLE_USER.name(), ERole.ROLE_MODERATOR.name());
+		assertThat(roleNames(rows.get(1))).isEmpty();
+		assertThat(roleNames(rows.get(2))).containsExactly(ERole.ROLE_USER.name());
+
+		Map<Object, List<String>> all = userStudentService.getAllStudents(fields).stream()
+				.map(item -> (Map<?, ?>) item)
+				.collect(Collectors.toMap(row -> row.get("id"), StudentCursorPagingTests::roleNames));
+		for (Map<?, ?> row : rows) {
+			assertThat(all.get(row.get("id"))).containsExactlyInAnyOrderElementsOf(roleNames(row));
+		}
+	}
+
+	@Test
+	void rejectsLimitsOutOfRange() {
+		assertThatThrownBy(() -> userStudentService.getStudentsAfter(null, 0, StudentFields.SUMMARY))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> userStudentService.getStudentsAfter(null, UserStudentService.MAX_PAGE_LIMIT + 1, StudentFields.SUMMARY))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(userStudentService.getStudentsAfter(null, null, StudentFields.SUMMARY).getLimit())
+				.isEqualTo(UserStudentService.DEFAULT_PAGE_LIMIT);
+	}
+
+	private static List<String> roleNames(Map<?, ?> row) {
+		return ((Set<?>) row.get("roles")).stream().map(role -> ((Role) role).getName().name()).collect(Collectors.toList());
+	}
+
+	private static List<Long> ids(CursorPageResponse<?> page, Function<Object, Long> id) {
+		return page.getItems().stream().map(id).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.registration.service;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentFieldsTests {
+
+	@Test
+	void missingSelectionMeansEntity() {
+		assertThat(StudentFields.parse(null)).isSameAs(StudentFields.ENTITY);
+		assertThat(StudentFields.parse("  ")).isSameAs(StudentFields.ENTITY);
+		assertThat(StudentFields.ENTITY.isEntity()).isTrue();
+		assertThat(StudentFields.ENTITY.isSummary()).isFalse();
+		assertThat(StudentFields.ENTITY.includesLastLogin()).isTrue();
+	}
+
+	@Test
+	void allSelectsEveryAllowedField() {
+		StudentFields all = StudentFields.parse(" ALL ");
+
+		assertThat(all).isSameAs(StudentFields.ALL);
+		assertThat(all.isEntity()).isFalse();
+		assertThat(all.getNames()).isEqualTo(StudentFields.ALLOWED);
+	}
+
+	@Test
+	void keepsRequestOrderWithIdFirstAndNoDuplicates() {
+		StudentFields fields = StudentFields.parse("email, ,username,email,id");
+
+		assertThat(fields.getNames()).containsExactly("id", "email", "username");
+		assertThat(fields.isEntity()).isFalse();
+		assertThat(fields.includesRoles()).isFalse();
+		assertThat(fields.includesLastLogin()).isFalse();
+	}
+
+	@Test
+	void recognisesSummaryInAnyOrder() {
+		assertThat(StudentFields.parse("enrollmentDate,email,fullName,username").isSummary()).isTrue();
+		assertThat(StudentFields.parse("username,fullName,email").isSummary()).isFalse();
+		assertThat(StudentFields.parse("username,fullName,email,enrollmentDate,roles").isSummary()).isFalse();
+	}
+
+	@Test
+	void rejectsFieldsOutsideWhitelist() {
+		assertThatThrownBy(() -> StudentFields.parse("username,password"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Unknown field: password");
+		assertThatThrownBy(() -> StudentFields.parse("FullName"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Unknown field: FullName");
+		assertThatThrownBy(() -> StudentFields.parse("all,username"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void selectsEveryAllowedFieldFromEntity() {
+		User user = new User("ada", "ada@example.com", "secret", "Ada Lovelace", LocalDate.of(2024, 1, 2));
+		user.setId(7L);
+		user.setRoles(Set.of(new Role(ERole.ROLE_USER)));
+		user.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+		user.setUpdatedAt(LocalDateTime.of(2024, 2, 3, 11, 0));
+		user.setLastLogin(LocalDateTime.of(2024, 3, 4, 12, 0));
+		user.setIsActive(false);
+
+		Map<String, Object> row = StudentFields.ALL.select(user);
+
+		assertThat(row.keySet()).containsExactlyElementsOf(StudentFields.ALLOWED);
+		assertThat(row)
+				.containsEntry("id", 7L)
+				.containsEntry("username", "ada")
+				.containsEntry("email", "ada@example.com")
+				.containsEntry("fullName", "Ada Lovelace")
+				.containsEntry("enrollmentDate", LocalDate.of(2024, 1, 2))
+				.containsEntry("roles", user.getRoles())
+				.containsEntry("createdAt", LocalDateTime.of(2024, 1, 2, 10, 0))
+				.containsEntry("updatedAt", LocalDateTime.of(2024, 2, 3, 11, 0))
+				.containsEntry("lastLogin", LocalDateTime.of(2024, 3, 4, 12, 0))
+				.containsEntry("isActive", false);
+	}
+
+	@Test
+	void selectsOnlyRequestedFields() {
+		User user = new User("ada", "ada@example.com", "secret", "Ada Lovelace", LocalDate.of(2024, 1, 2));
+		user.setId(7L);
+
+		assertThat(StudentFields.parse("fullName").select(user))
+				.containsExactly(Map.entry("id", 7L), Map.entry("fullName", "Ada Lovelace"));
+	}
+}
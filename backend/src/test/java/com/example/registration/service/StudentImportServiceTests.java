@@ -0,0 +1,215 @@
+package com.example.registration.service;
+
+import com.example.registration.exception.BulkOperationException;
+import com.example.registration.exception.ServiceBusyException;
+import com.example.registration.payload.request.SignupRequest;
+import com.example.registration.security.services.BoundedPasswordEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Chunks of two rows, so a handful of lines spans several transactions and ends with a partial chunk; a one-thread
+// encoder with a tiny queue is easy to saturate
+@SpringBootTest(properties = {"app.importChunkSize=2", "app.bcryptStrength=4", "app.bcryptThreads=1", "app.bcryptQueueCapacity=2"})
+class StudentImportServiceTests {
+
+	private static final String HEADER = "username,email,password,fullName,enrollmentDate,role";
+
+	@Autowired
+	private StudentImportService studentImportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StudentSearchIndex studentSearchIndex;
+
+	@Autowired
+	private BoundedPasswordEncoder passwordEncoder;
+
+	@AfterEach
+	void deleteImportedStudents() {
+		jdbcTemplate.update("delete from user_roles where user_id in (select id from users where username like 'imp%')");
+		jdbcTemplate.update("delete from users where username like 'imp%'");
+	}
+
+	@Test
+	void splitsQuotedFields() {
+		assertThat(StudentImportService.splitCsv("a,b,c")).containsExactly("a", "b", "c");
+		assertThat(StudentImportService.splitCsv("\"Lovelace, Ada\",x")).containsExactly("Lovelace, Ada", "x");
+		assertThat(StudentImportService.splitCsv("\"Grace \"\"Amazing\"\" Hopper\"")).containsExactly("Grace \"Amazing\" Hopper");
+		assertThat(StudentImportService.splitCsv("a,,\"\",")).containsExactly("a", "", "", "");
+		assertThat(StudentImportService.splitCsv("")).containsExactly("");
+	}
+
+	@Test
+	void mapsColumnsByHeaderName() {
+		String[] header = StudentImportService.splitCsv(" FullName ,Username,EMAIL,password,enrollmentdate,role");
+		SignupRequest request = StudentImportService.fromCsv(header,
+				"\"Lovelace, Ada\", ada ,ada@example.com,secret123,2024-01-02,user|mod;admin");
+
+		assertThat(request.getFullName()).isEqualTo("Lovelace, Ada");
+		assertThat(request.getUsername()).isEqualTo("ada");
+		assertThat(request.getEmail()).isEqualTo("ada@example.com");
+		assertThat(request.getPassword()).isEqualTo("secret123");
+		assertThat(request.getEnrollmentDate()).isEqualTo(LocalDate.of(2024, 1, 2));
+		assertThat(request.getRole()).containsExactlyInAnyOrder("user", "mod", "admin");
+	}
+
+	@Test
+	void leavesMissingAndEmptyColumnsUnset() {
+		String[] header = StudentImportService.splitCsv(HEADER);
+		SignupRequest request = StudentImportService.fromCsv(header, "ada,,secret123");
+
+		assertThat(request.getUsername()).isEqualTo("ada");
+		assertThat(request.getEmail()).isNull();
+		assertThat(request.getFullName()).isNull();
+		assertThat(request.getEnrollmentDate()).isNull();
+		assertThat(request.getRole()).isNull();
+	}
+
+	@Test
+	void rejectsUnreadableRows() {
+		assertThatThrownBy(() -> StudentImportService.fromCsv(null, "ada,ada@example.com"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("missing CSV header");
+		assertThatThrownBy(() -> StudentImportService.fromCsv(StudentImportService.splitCsv(HEADER),
+				"ada,ada@example.com,secret123,Ada,02/01/2024"))
+				.isInstanceOf(DateTimeParseException.class);
+	}
+
+	@Test
+	void importsValidRowsAndReportsBadOnes() throws IOException {
+		Map<String, Object> summary = studentImportService.importStudents(lines(
+				HEADER,
+				"imp1,imp1@example.com,secret123,\"Lovelace, Ada\",2024-01-02,",
+				"imp2,imp2@example.com,secret123,\"Grace \"\"Amazing\"\" Hopper\",2024-01-03,user|mod",
+				"",
+				"imp3,not-an-email,secret123,Alan Turing,2024-01-04,",
+				"imp4,imp4@example.com,secret123,Edsger Dijkstra,04/01/2024,",
+				"imp1,imp5@example.com,secret123,Ada Again,2024-01-05,",
+				"imp6,imp6@example.com,secret123,Barbara Liskov,2024-01-06,"), StudentImportService.Format.CSV);
+
+		assertThat(summary)
+				.containsEntry("received", 6)
+				.containsEntry("imported", 3)
+				.containsEntry("failed", 3);
+		@SuppressWarnings("unchecked")
+		List<String> errors = (List<String>) summary.get("errors");
+		assertThat(errors).hasSize(3);
+		assertThat(errors.get(0)).startsWith("line 5: email:");
+		assertThat(errors.get(1)).startsWith("line 6: unreadable row:");
+		assertThat(errors.get(2)).isEqualTo("line 7: username: imp1 is already taken");
+
+		assertThat(jdbcTemplate.queryForObject("select full_name from users where username = 'imp1'", String.class))
+				.isEqualTo("Lovelace, Ada");
+		assertThat(jdbcTemplate.queryForObject("select full_name from users where username = 'imp2'", String.class))
+				.isEqualTo("Grace \"Amazing\" Hopper");
+		assertThat(roles("imp1")).containsExactly("ROLE_USER");
+		assertThat(roles("imp2")).containsExactlyInAnyOrder("ROLE_USER", "ROLE_MODERATOR");
+		// The trailing chunk holds a single row and is committed like the others
+		assertThat(roles("imp6")).containsExactly("ROLE_USER");
+		assertThat(studentSearchIndex.search("liskov")).hasSize(1);
+	}
+
+	@Test
+	void rejectsRowsRepeatedWithinOneChunk() throws IOException {
+		Map<String, Object> summary = studentImportService.importStudents(lines(
+				HEADER,
+				"imp1,imp1@example.com,secret123,Ada Lovelace,2024-01-02,",
+				"imp2,imp1@example.com,secret123,Grace Hopper,2024-01-03,"), StudentImportService.Format.CSV);
+
+		assertThat(summary).containsEntry("imported", 1).containsEntry("failed", 1);
+		assertThat(summary.get("errors")).isEqualTo(List.of("line 3: email: imp1@example.com is already in use"));
+	}
+
+	@Test
+	void importsNdjson() throws IOException {
+		Map<String, Object> summary = studentImportService.importStudents(lines(
+				"{\"username\":\"imp1\",\"email\":\"imp1@example.com\",\"password\":\"secret123\",\"fullName\":\"Ada Lovelace\",\"enrollmentDate\":\"2024-01-02\"}",
+				"{\"username\":\"imp2\",",
+				"{\"username\":\"imp3\",\"email\":\"imp3@example.com\",\"password\":\"secret123\",\"fullName\":\"Alan Turing\",\"enrollmentDate\":\"2024-01-04\"}"),
+				StudentImportService.Format.NDJSON);
+
+		assertThat(summary).containsEntry("received", 3).containsEntry("imported", 2).containsEntry("failed", 1);
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where username like 'imp%'", Integer.class)).isEqualTo(2);
+	}
+
+	@Test
+	void failsWhenNoRowIsImported() {
+		assertThatThrownBy(() -> studentImportService.importStudents(lines(
+				HEADER,
+				"imp1,imp1@example.com,short,Ada Lovelace,2024-01-02,",
+				"imp2,imp2@example.com,secret123,Grace Hopper,2999-01-01,"), StudentImportService.Format.CSV))
+				.isInstanceOf(BulkOperationException.class)
+				.hasMessage("Imported 0 of 2 rows; 2 rows failed")
+				.satisfies(e -> assertThat(((BulkOperationException) e).getErrors()).hasSize(2));
+	}
+
+	@Test
+	void waitsForSaturatedEncoderInsteadOfFailingRows() throws Exception {
+		// Other callers keep the encoder's queue full for the whole import
+		AtomicBoolean importing = new AtomicBoolean(true);
+		AtomicInteger rejected = new AtomicInteger();
+		ExecutorService signins = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < 4; i++) {
+			signins.execute(() -> {
+				while (importing.get()) {
+					try {
+						passwordEncoder.encode("signin");
+					} catch (ServiceBusyException e) {
+						rejected.incrementAndGet();
+					}
+				}
+			});
+		}
+
+		List<String> rows = new ArrayList<>();
+		rows.add(HEADER);
+		for (int i = 1; i <= 20; i++) {
+			rows.add("imp" + i + ",imp" + i + "@example.com,secret123,Student " + i + ",2024-01-02,");
+		}
+		Map<String, Object> summary;
+		try {
+			summary = studentImportService.importStudents(lines(rows.toArray(new String[0])), StudentImportService.Format.CSV);
+		} finally {
+			importing.set(false);
+			signins.shutdown();
+			assertThat(signins.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		}
+
+		assertThat(rejected.get()).isPositive();
+		assertThat(summary).containsEntry("imported", 20).containsEntry("failed", 0).doesNotContainKey("errors");
+		assertThat(passwordEncoder.matches("secret123",
+				jdbcTemplate.queryForObject("select password from users where username = 'imp20'", String.class))).isTrue();
+	}
+
+	private List<String> roles(String username) {
+		return jdbcTemplate.queryForList("select r.name from roles r join user_roles ur on ur.role_id = r.id "
+				+ "join users u on u.id = ur.user_id where u.username = ?", String.class, username);
+	}
+
+	private static InputStream lines(String... lines) {
+		return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+}
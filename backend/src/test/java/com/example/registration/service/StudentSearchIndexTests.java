@@ -0,0 +1,152 @@
+package com.example.registration.service;
+
+import com.example.registration.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentSearchIndexTests {
+
+	private final StudentSearchIndex index = new StudentSearchIndex();
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void matchesSubstringsOfAnyField() {
+		index.rebuild(List.of(
+				student(1L, "ada", "ada@example.com", "Ada Lovelace"),
+				student(2L, "grace", "grace@navy.mil", "Grace Hopper"),
+				student(3L, "alan", "alan@example.com", "Alan Turing")));
+
+		assertThat(index.search("LOVE")).containsExactly(1L);
+		assertThat(index.search("navy")).containsExactly(2L);
+		assertThat(index.search("example.com")).containsExactly(3L, 1L);
+		assertThat(index.search("alan")).containsExactly(3L);
+	}
+
+	@Test
+	void requiresEveryTrigramInOneField() {
+		index.rebuild(List.of(
+				student(1L, "ada", "ada@example.com", "Ada Lovelace"),
+				student(2L, "grace", "grace@navy.mil", "Grace Hopper")));
+
+		// "Grace Hopper" has the trigrams "ace" and "hop", but not the keyword itself
+		assertThat(index.search("acehop")).isEmpty();
+		// Every trigram of "lace" (lac, ace) occurs in student 1, but "grace" only has "ace"
+		assertThat(index.search("lace")).containsExactly(1L);
+		// A trigram no student has short-circuits the search
+		assertThat(index.search("xyz")).isEmpty();
+	}
+
+	@Test
+	void shortKeywordsScanAllStudents() {
+		index.rebuild(List.of(
+				student(1L, "ada", "ada@example.com", "Ada Lovelace"),
+				student(2L, "grace", "grace@navy.mil", "Grace Hopper"),
+				student(3L, "alan", "alan@example.com", "Alan Turing")));
+
+		assertThat(index.search("ng")).containsExactly(3L);
+		assertThat(index.search("a")).containsExactly(3L, 2L, 1L);
+	}
+
+	@Test
+	void indexesOnlyStudents() {
+		User admin = new User("admin", "admin@example.com", "secret");
+		admin.setId(4L);
+		index.index(admin);
+
+		assertThat(index.search("admin")).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void reindexReplacesOldFields() {
+		index.rebuild(List.of(student(1L, "ada", "ada@example.com", "Ada Lovelace")));
+		index.index(student(1L, "ada", "ada@example.com", "Ada King"));
+
+		assertThat(index.search("lovelace")).isEmpty();
+		assertThat(index.search("king")).containsExactly(1L);
+		assertThat(index.size()).isEqualTo(1);
+	}
+
+	@Test
+	void appliesUpdatesOnlyAfterCommit() {
+		index.rebuild(List.of(student(1L, "ada", "ada@example.com", "Ada Lovelace")));
+		TransactionSynchronizationManager.initSynchronization();
+
+		index.index(student(2L, "grace", "grace@navy.mil", "Grace Hopper"));
+		index.remove(1L);
+		assertThat(index.search("grace")).isEmpty();
+		assertThat(index.search("ada")).containsExactly(1L);
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(index.search("grace")).containsExactly(2L);
+		assertThat(index.search("ada")).isEmpty();
+	}
+
+	@Test
+	void discardsUpdatesOfRolledBackTransaction() {
+		index.rebuild(List.of(student(1L, "ada", "ada@example.com", "Ada Lovelace")));
+		TransactionSynchronizationManager.initSynchronization();
+
+		index.index(student(2L, "grace", "grace@navy.mil", "Grace Hopper"));
+		index.remove(1L);
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertThat(index.search("grace")).isEmpty();
+		assertThat(index.search("ada")).containsExactly(1L);
+	}
+
+	@Test
+	void boundsShortKeywordOnLargeIndex() {
+		List<User> students = new ArrayList<>();
+		for (long id = 1; id <= 100_000; id++) {
+			students.add(student(id, "user" + id, "user" + id + "@example.com", "Student " + id));
+		}
+		index.rebuild(students);
+
+		// "a" matches every student through the email domain
+		List<Long> first = index.search("a", Long.MAX_VALUE, 500);
+		assertThat(first).hasSize(500);
+		assertThat(first.get(0)).isEqualTo(100_000L);
+		assertThat(first.get(499)).isEqualTo(99_501L);
+
+		List<Long> second = index.search("a", first.get(499), 500);
+		assertThat(second).hasSize(500);
+		assertThat(second.get(0)).isEqualTo(99_500L);
+
+		assertThat(index.search("a", 3L, 500)).containsExactly(2L, 1L);
+		// A common trigram is bounded the same way
+		assertThat(index.search("example", Long.MAX_VALUE, 10)).hasSize(10).first().isEqualTo(100_000L);
+	}
+
+	@Test
+	void boundedSearchSkipsNonMatchesBelowCursor() {
+		index.rebuild(List.of(
+				student(1L, "ada", "ada@example.com", "Ada Lovelace"),
+				student(2L, "grace", "grace@navy.mil", "Grace Hopper"),
+				student(3L, "alan", "alan@example.com", "Alan Turing"),
+				student(4L, "barbara", "barbara@example.com", "Barbara Liskov")));
+
+		assertThat(index.search("example", Long.MAX_VALUE, 2)).containsExactly(4L, 3L);
+		assertThat(index.search("example", 3L, 2)).containsExactly(1L);
+	}
+
+	private static User student(Long id, String username, String email, String fullName) {
+		User user = new User(username, email, "secret", fullName, LocalDate.of(2024, 1, 1));
+		user.setId(id);
+		return user;
+	}
+}
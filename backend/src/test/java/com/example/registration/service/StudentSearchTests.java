@@ -0,0 +1,95 @@
+package com.example.registration.service;
+
+import com.example.registration.payload.response.CursorPageResponse;
+import com.example.registration.payload.response.StudentSummary;
+import com.example.registration.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StudentSearchTests {
+
+	private static final int STUDENTS = 1_200;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private StudentSearchIndex studentSearchIndex;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void insertStudents() {
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 1; i <= STUDENTS; i++) {
+			rows.add(new Object[] {"srch" + i, "srch" + i + "@example.com", "Search Student " + i});
+		}
+		jdbcTemplate.batchUpdate("insert into users (username, email, password, full_name, enrollment_date, is_active) "
+				+ "values (?, ?, 'x', ?, date '2024-01-01', true)", rows);
+		studentSearchIndex.rebuild(userRepository.findAllStudents());
+	}
+
+	@AfterEach
+	void deleteStudents() {
+		jdbcTemplate.update("delete from users where username like 'srch%'");
+		studentSearchIndex.rebuild(userRepository.findAllStudents());
+	}
+
+	@Test
+	void shortKeywordLoadsOnePage() {
+		CursorPageResponse<?> page = userStudentService.searchStudents("s", null, UserStudentService.MAX_PAGE_LIMIT,
+				StudentFields.SUMMARY);
+
+		assertThat(page.getItems()).hasSize(UserStudentService.MAX_PAGE_LIMIT);
+		assertThat(page.getNextCursor()).isEqualTo(((StudentSummary) page.getItems().get(499)).getId());
+	}
+
+	@Test
+	void pagesThroughEveryHit() {
+		List<Long> walked = new ArrayList<>();
+		Long cursor = null;
+		do {
+			CursorPageResponse<?> page = userStudentService.searchStudents("srch", cursor, 500, StudentFields.parse("username"));
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(500);
+			page.getItems().forEach(item -> walked.add((Long) ((Map<?, ?>) item).get("id")));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		List<Long> expected = jdbcTemplate.queryForList("select id from users where username like 'srch%' order by id desc",
+				Long.class);
+		assertThat(walked).isEqualTo(expected);
+	}
+
+	@Test
+	void pagesEntitiesWithDefaultLimit() {
+		CursorPageResponse<?> page = userStudentService.searchStudents("search student 1", null, null, StudentFields.ENTITY);
+
+		assertThat(page.getLimit()).isEqualTo(UserStudentService.DEFAULT_PAGE_LIMIT);
+		assertThat(page.getItems()).hasSize(UserStudentService.DEFAULT_PAGE_LIMIT);
+		assertThat(page.getNextCursor()).isNotNull();
+	}
+
+	@Test
+	void noHitsGiveEmptyPage() {
+		CursorPageResponse<?> page = userStudentService.searchStudents("no such student", null, 10, StudentFields.SUMMARY);
+
+		assertThat(page.getItems()).isEmpty();
+		assertThat(page.getNextCursor()).isNull();
+	}
+}
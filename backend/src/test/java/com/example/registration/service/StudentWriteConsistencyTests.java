@@ -0,0 +1,146 @@
+package com.example.registration.service;
+
+import com.example.registration.payload.request.BulkStudentRequest;
+import com.example.registration.payload.request.UpdateUserRequest;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.security.services.UserDetailsServiceImpl;
+import com.example.registration.security.services.UserPrincipal;
+import com.example.registration.security.services.UserPrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The in-memory state kept up to date by each write must match what a full rebuild from the database gives
+@SpringBootTest
+@AutoConfigureMockMvc
+class StudentWriteConsistencyTests {
+
+	private static final List<String> USERNAMES = List.of("consist1", "consist2", "consist3");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserStudentService userStudentService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private StudentCounter studentCounter;
+
+	@Autowired
+	private EnrollmentStatistics enrollmentStatistics;
+
+	@Autowired
+	private UserPrincipalCache userPrincipalCache;
+
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
+
+	@BeforeEach
+	void rebuildBaseline() {
+		// Other tests save users straight through the repository, so start from the database's state
+		studentCounter.reset();
+		enrollmentStatistics.rebuild(userRepository.findAllStudents());
+	}
+
+	@AfterEach
+	void deleteStudents() {
+		for (String username : USERNAMES) {
+			userRepository.findByUsername(username).ifPresent(user -> userStudentService.deleteStudent(user.getId()));
+		}
+	}
+
+	@Test
+	void staysConsistentThroughEveryWrite() throws Exception {
+		Long first = signup("consist1", "2024-03-05");
+		assertConsistent();
+		Long second = signup("consist2", "2023-11-20");
+		assertConsistent();
+
+		UpdateUserRequest moved = new UpdateUserRequest();
+		moved.setUsername("consist3");
+		moved.setFullName("Consistent Moved");
+		moved.setEnrollmentDate(LocalDate.of(2022, 7, 1));
+		userStudentService.updateStudent(first, moved);
+		assertConsistent();
+
+		userStudentService.updateStudentWithRoles(second, new UpdateUserRequest(), List.of("user", "mod"));
+		assertConsistent();
+
+		BulkStudentRequest deactivate = new BulkStudentRequest();
+		deactivate.setIds(List.of(first));
+		deactivate.setActive(false);
+		userStudentService.bulkUpdateStatus(deactivate);
+		assertConsistent();
+
+		BulkStudentRequest promote = new BulkStudentRequest();
+		promote.setIds(List.of(first, second));
+		promote.setRoles(List.of("MODERATOR"));
+		userStudentService.bulkUpdateRoles(promote);
+		assertConsistent();
+
+		BulkStudentRequest delete = new BulkStudentRequest();
+		delete.setIds(List.of(first));
+		userStudentService.bulkDeleteStudents(delete);
+		assertConsistent();
+
+		userStudentService.deleteStudent(second);
+		assertConsistent();
+	}
+
+	private Long signup(String username, String enrollmentDate) throws Exception {
+		mockMvc.perform(post("/api/auth/signup")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\","
+								+ "\"password\":\"secret123\",\"fullName\":\"Consistent " + username + "\","
+								+ "\"enrollmentDate\":\"" + enrollmentDate + "\",\"role\":[\"user\"]}"))
+				.andExpect(status().isOk());
+		return userRepository.findByUsername(username).orElseThrow().getId();
+	}
+
+	private void assertConsistent() {
+		assertThat(studentCounter.get()).as("student count").isEqualTo(userRepository.countStudents());
+
+		Map<String, Object> incremental = enrollmentStatistics.snapshot();
+		enrollmentStatistics.rebuild(userRepository.findAllStudents());
+		assertThat(incremental).as("enrollment statistics").isEqualTo(enrollmentStatistics.snapshot());
+
+		// Reading through the cache also warms it, so the next write has something to invalidate
+		for (String username : USERNAMES) {
+			if (userRepository.findByUsername(username).isPresent()) {
+				UserPrincipal cached = userPrincipalCache.get(username);
+				UserPrincipal loaded = (UserPrincipal) userDetailsService.loadUserByUsername(username);
+				assertThat(cached.getId()).as("cached principal of " + username).isEqualTo(loaded.getId());
+				assertThat(cached.getEmail()).as("cached principal of " + username).isEqualTo(loaded.getEmail());
+				assertThat(cached.getPassword()).as("cached principal of " + username).isEqualTo(loaded.getPassword());
+				assertThat(authorities(cached)).as("cached principal of " + username).isEqualTo(authorities(loaded));
+			} else {
+				assertThatThrownBy(() -> userPrincipalCache.get(username)).isInstanceOf(UsernameNotFoundException.class);
+			}
+		}
+	}
+
+	private static Set<String> authorities(UserPrincipal principal) {
+		return principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,149 @@
+package com.example.registration.service;
+
+import com.example.registration.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TakenNamesTests {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createUsers() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:takennames;DB_CLOSE_DELAY=-1", "sa", "", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table users (username varchar(50), email varchar(100))");
+		jdbcTemplate.update("insert into users values ('alice', 'alice@example.com'), ('Bob', 'bob@example.com')");
+		when(userRepository.existsByUsername(anyString())).thenReturn(true);
+		when(userRepository.existsByEmail(anyString())).thenReturn(true);
+	}
+
+	@AfterEach
+	void dropUsers() {
+		jdbcTemplate.execute("drop table users");
+		dataSource.destroy();
+	}
+
+	@Test
+	void unseenNamesAreAnsweredWithoutQuery() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.rebuild();
+
+		assertThat(takenNames.isUsernameTaken("carol")).isFalse();
+		assertThat(takenNames.isEmailTaken("carol@example.com")).isFalse();
+		verify(userRepository, never()).existsByUsername(anyString());
+		verify(userRepository, never()).existsByEmail(anyString());
+		assertThat(meterRegistry.counter("auth.availability.lookups", "source", "filter").count()).isEqualTo(2);
+	}
+
+	@Test
+	void loadedNamesAreConfirmedByDatabase() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.rebuild();
+
+		// The filter is case-folded, the database decides the exact match
+		assertThat(takenNames.isUsernameTaken("alice")).isTrue();
+		assertThat(takenNames.isUsernameTaken(" BOB ")).isTrue();
+		assertThat(takenNames.isEmailTaken("Alice@Example.com")).isTrue();
+		verify(userRepository).existsByUsername("alice");
+		verify(userRepository).existsByUsername(" BOB ");
+		verify(userRepository).existsByEmail("Alice@Example.com");
+		assertThat(meterRegistry.counter("auth.availability.lookups", "source", "database").count()).isEqualTo(3);
+	}
+
+	@Test
+	void addedNamesAreNeverReportedFree() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.rebuild();
+		for (int i = 0; i < 1000; i++) {
+			takenNames.add("user" + i, "user" + i + "@example.com");
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertThat(takenNames.isUsernameTaken("user" + i)).isTrue();
+			assertThat(takenNames.isEmailTaken("user" + i + "@example.com")).isTrue();
+		}
+	}
+
+	@Test
+	void namesAddedDuringRebuildReachNewFilters() {
+		TakenNames[] holder = new TakenNames[1];
+		// Simulates a signup committing while the table is being scanned: its row is not in the scan result
+		JdbcTemplate scanning = new JdbcTemplate(dataSource) {
+			@Override
+			public void query(String sql, RowCallbackHandler handler) {
+				super.query(sql, rs -> {
+					handler.processRow(rs);
+					if (rs.getRow() == 1) {
+						holder[0].add("carol", "carol@example.com");
+					}
+				});
+			}
+		};
+		holder[0] = takenNames(scanning);
+		holder[0].rebuild();
+
+		assertThat(holder[0].isUsernameTaken("carol")).isTrue();
+		assertThat(holder[0].isEmailTaken("carol@example.com")).isTrue();
+		assertThat(holder[0].isUsernameTaken("alice")).isTrue();
+	}
+
+	@Test
+	void rebuildStartsFromTheTable() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.add("carol", "carol@example.com");
+		takenNames.rebuild();
+
+		assertThat(takenNames.isUsernameTaken("carol")).isFalse();
+		assertThat(takenNames.isUsernameTaken("alice")).isTrue();
+	}
+
+	@Test
+	void asksDatabaseUntilFirstRebuild() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.add("carol", "carol@example.com");
+		when(userRepository.existsByUsername("dave")).thenReturn(false);
+
+		assertThat(takenNames.isReady()).isFalse();
+		assertThat(takenNames.isUsernameTaken("alice")).isTrue();
+		assertThat(takenNames.isUsernameTaken("dave")).isFalse();
+		assertThat(takenNames.isEmailTaken("bob@example.com")).isTrue();
+		verify(userRepository).existsByUsername("alice");
+		verify(userRepository).existsByUsername("dave");
+		verify(userRepository).existsByEmail("bob@example.com");
+		assertThat(meterRegistry.counter("auth.availability.lookups", "source", "filter").count()).isZero();
+
+		takenNames.rebuild();
+		assertThat(takenNames.isReady()).isTrue();
+		assertThat(takenNames.isUsernameTaken("dave")).isFalse();
+		verify(userRepository).existsByUsername("dave");
+	}
+
+	@Test
+	void nullNamesAreIgnored() {
+		TakenNames takenNames = takenNames(jdbcTemplate);
+		takenNames.rebuild();
+		takenNames.add("dave", null);
+
+		assertThat(takenNames.isUsernameTaken("dave")).isTrue();
+		assertThat(takenNames.isEmailTaken("dave@example.com")).isFalse();
+	}
+
+	private TakenNames takenNames(JdbcTemplate template) {
+		return new TakenNames(userRepository, template, meterRegistry, 10_000, 0.01);
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.Role;
+import com.example.registration.model.User;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Deterministic synthetic data shared by the benchmarks
+final class Fixtures {
+    static final String JWT_SECRET =
+            "mySecretKey1234567890123456789012345678901234567890123456789012345678901234567890abcdefghijklmnopqrstuvwxyz";
+
+    private static final String[] FIRST_NAMES = {"Ada", "Alan", "Grace", "Linus", "Barbara", "Dennis", "Frances", "Ken"};
+    private static final String[] LAST_NAMES = {"Lovelace", "Turing", "Hopper", "Torvalds", "Liskov", "Ritchie", "Allen", "Thompson"};
+
+    private Fixtures() {
+    }
+
+    static Role role(int id, ERole name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+
+    // Users with ids 1..count; every tenth one has no student profile, like accounts that never completed it
+    static List<User> users(int count) {
+        Random random = new Random(42);
+        Set<Role> userRoles = new HashSet<>(List.of(role(1, ERole.ROLE_USER)));
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            User user = new User("user" + i, "user" + i + "@example.com", "$2a$10$abcdefghijklmnopqrstuv");
+            user.setId((long) i);
+            if (i % 10 != 0) {
+                user.setFullName(first + " " + last + " " + i);
+                user.setEnrollmentDate(LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1500)));
+            }
+            user.setRoles(userRoles);
+            user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0).plusMinutes(i));
+            user.setUpdatedAt(user.getCreatedAt());
+            users.add(user);
+        }
+        return users;
+    }
+
+    // Sets a private field, used for @Value fields of Spring components created outside a context
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.security.jwt.JwtUtils;
+import com.example.registration.security.services.UserPrincipal;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import javax.crypto.SecretKey;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+    private SecretKey key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        Fixtures.setField(jwtUtils, "jwtSecret", Fixtures.JWT_SECRET);
+        Fixtures.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        Fixtures.setField(jwtUtils, "jwtCacheMaxSize", 10000L);
+        jwtUtils.init();
+
+        User user = new User("benchmark", "benchmark@example.com", "hash");
+        user.setId(1L);
+        user.setRoles(Set.of(Fixtures.role(1, ERole.ROLE_USER)));
+        UserPrincipal principal = UserPrincipal.build(user);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+        key = Keys.hmacShaKeyFor(Fixtures.JWT_SECRET.getBytes());
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    // Same bearer token every time: served from the verified-claims cache
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    // Full parse and HS512 check with a fresh parser, the per-request cost before caching
+    @Benchmark
+    public String parseAndVerifyUncached() {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+}
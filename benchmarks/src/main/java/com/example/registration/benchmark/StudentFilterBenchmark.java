@@ -0,0 +1,70 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.model.User;
+import com.example.registration.service.StudentSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// In-Java student filtering as getAllStudents/searchStudents used to do it, against the trigram index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentFilterBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    @Param({"lovelace", "user4242"})
+    private String keyword;
+
+    private List<User> users;
+    private StudentSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        users = Fixtures.users(tableSize);
+        index = new StudentSearchIndex();
+        index.rebuild(users.stream()
+                .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<User> legacyStudentFilter() {
+        return users.stream()
+                .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<User> legacySearchScan() {
+        return users.stream()
+                .filter(user -> user.getFullName() != null && user.getEnrollmentDate() != null)
+                .filter(user ->
+                    user.getFullName().toLowerCase().contains(keyword.toLowerCase()) ||
+                    user.getEmail().toLowerCase().contains(keyword.toLowerCase()) ||
+                    user.getUsername().toLowerCase().contains(keyword.toLowerCase())
+                )
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> trigramIndexSearch() {
+        return index.search(keyword);
+    }
+}
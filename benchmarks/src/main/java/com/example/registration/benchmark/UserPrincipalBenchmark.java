@@ -0,0 +1,40 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.model.ERole;
+import com.example.registration.model.User;
+import com.example.registration.security.services.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPrincipalBenchmark {
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("benchmark", "benchmark@example.com", "hash");
+        user.setId(1L);
+        user.setRoles(Set.of(Fixtures.role(1, ERole.ROLE_USER), Fixtures.role(3, ERole.ROLE_ADMIN)));
+    }
+
+    @Benchmark
+    public UserPrincipal build() {
+        return UserPrincipal.build(user);
+    }
+}
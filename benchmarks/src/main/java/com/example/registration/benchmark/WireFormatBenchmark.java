@@ -0,0 +1,67 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.model.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Encoding a large List<User> response body as JSON vs the binary formats offered through content negotiation
+// (WireFormatConfig); the payload size of each format is printed once per trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"1000", "10000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<User> users;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper(factory(format))
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        users = Fixtures.users(listSize);
+        System.out.printf("%n%s payload for %d users: %d bytes%n", format, listSize, objectMapper.writeValueAsBytes(users).length);
+    }
+
+    @Benchmark
+    public byte[] encodeUsers() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
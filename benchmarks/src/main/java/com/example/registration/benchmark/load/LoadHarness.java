@@ -0,0 +1,270 @@
+package com.example.registration.benchmark.load;
+
+import com.example.registration.RegistrationApplication;
+import com.example.registration.repository.UserRepository;
+import com.example.registration.service.StudentCounter;
+import com.example.registration.service.TakenNames;
+import com.example.registration.service.StudentSearchIndex;
+import com.example.registration.service.UserStudentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+// Self-contained load test: boots the application in-process on an in-memory H2 database, seeds it with
+// synthetic students, then drives signin, list, search and profile updates from a fixed number of client
+// threads and reports throughput, p50/p99/p999 latency and error rate per endpoint.
+//
+//   java -cp target/benchmarks.jar com.example.registration.benchmark.load.LoadHarness \
+//        --students=10000 --scale=1 --seed=42 --concurrency=16 --duration=30 --warmup=5
+//
+// Any other --key=value argument (e.g. --app.bcryptStrength=10) is handed to the application.
+public class LoadHarness {
+    private static final String PASSWORD = "secret123";
+
+    enum Endpoint {
+        SIGNIN, LIST, SEARCH, UPDATE
+    }
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private String baseUrl;
+    private int students;
+    private String adminToken;
+    private final List<String> userTokens = new ArrayList<>();
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Application settings for the run; passed as command-line properties so they win over application.properties
+        Map<String, String> applicationProperties = new LinkedHashMap<>();
+        applicationProperties.put("server.port", "0");
+        applicationProperties.put("spring.datasource.url", "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+        applicationProperties.put("spring.h2.console.enabled", "false");
+        // Every simulated user signs in from this one address
+        applicationProperties.put("app.authRateLimitEnabled", "false");
+        applicationProperties.put("logging.level.com.example.registration", "WARN");
+        applicationProperties.put("logging.level.org.springframework.web", "WARN");
+        applicationProperties.put("logging.level.org.springframework.security", "WARN");
+
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 3) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            String key = arg.substring(2, separator);
+            (key.contains(".") ? applicationProperties : options).put(key, arg.substring(separator + 1));
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RegistrationApplication.class)
+                .run(applicationProperties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        try {
+            new LoadHarness(options).run(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+
+    void run(ConfigurableApplicationContext context) throws Exception {
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        students = intOption("students", 10000) * intOption("scale", 1);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int concurrency = intOption("concurrency", 16);
+        int warmupSeconds = intOption("warmup", 5);
+        int durationSeconds = intOption("duration", 30);
+        int activeUsers = Math.min(students, intOption("users", 50));
+
+        long started = System.nanoTime();
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        new SyntheticStudentGenerator(new JdbcTemplate(context.getBean(DataSource.class)), seed)
+                .generate(students, passwordHash);
+        // Rows were written behind JPA's back; drop cached lookups and bring the in-memory search index, statistics and count up to date
+        context.getBean(EntityManagerFactory.class).getCache().evictAll();
+        context.getBean(StudentSearchIndex.class).rebuild(context.getBean(UserRepository.class).findAllStudents());
+        context.getBean(UserStudentService.class).rebuildEnrollmentStatistics();
+        context.getBean(StudentCounter.class).reset();
+        context.getBean(TakenNames.class).rebuild();
+        System.out.printf("Seeded %d students in %d ms%n", students, (System.nanoTime() - started) / 1_000_000);
+
+        adminToken = signin(SyntheticStudentGenerator.ADMIN_USERNAME);
+        Random random = new Random(seed);
+        for (int i = 0; i < activeUsers; i++) {
+            userTokens.add(signin(SyntheticStudentGenerator.username(1 + random.nextInt(students))));
+        }
+
+        if (warmupSeconds > 0) {
+            System.out.printf("Warming up for %d s with %d clients%n", warmupSeconds, concurrency);
+            drive(concurrency, warmupSeconds, seed + 1);
+        }
+        System.out.printf("Measuring for %d s with %d clients%n", durationSeconds, concurrency);
+        long measureStart = System.nanoTime();
+        Map<Endpoint, LatencyRecorder> results = drive(concurrency, durationSeconds, seed + 2);
+        double elapsedSeconds = (System.nanoTime() - measureStart) / 1_000_000_000.0;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("students", students);
+        settings.put("seed", seed);
+        settings.put("concurrency", concurrency);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("activeUsers", activeUsers);
+        Map<String, Object> mix = new LinkedHashMap<>();
+        mix().forEach((endpoint, weight) -> mix.put(endpoint.name().toLowerCase(), weight));
+        settings.put("mix", mix);
+        report.put("settings", settings);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        results.forEach((endpoint, recorder) -> endpoints.put(endpoint.name().toLowerCase(), recorder.summary(elapsedSeconds)));
+        report.put("endpoints", endpoints);
+
+        printReport(results, elapsedSeconds);
+        File out = new File(options.getOrDefault("out", "load-result.json"));
+        objectMapper.writeValue(out, report);
+        System.out.println("Results written to " + out.getAbsolutePath());
+    }
+
+    // Relative request weights, e.g. --mix=signin:1,list:2,search:4,update:3
+    private Map<Endpoint, Integer> mix() {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : options.getOrDefault("mix", "signin:1,list:2,search:4,update:3").split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Endpoint.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private Map<Endpoint, LatencyRecorder> drive(int concurrency, int seconds, long seed) throws InterruptedException {
+        Map<Endpoint, Integer> mix = mix();
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Map<Endpoint, LatencyRecorder>> perWorker = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int worker = 0; worker < concurrency; worker++) {
+            Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+            mix.keySet().forEach(endpoint -> recorders.put(endpoint, new LatencyRecorder()));
+            perWorker.add(recorders);
+            Random random = new Random(seed * 31 + worker);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = weighted.get(random.nextInt(weighted.size()));
+                        long start = System.nanoTime();
+                        boolean error;
+                        try {
+                            error = call(endpoint, random) >= 400;
+                        } catch (Exception e) {
+                            error = true;
+                        }
+                        recorders.get(endpoint).record(System.nanoTime() - start, error);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + worker);
+            thread.start();
+        }
+        done.await();
+
+        Map<Endpoint, LatencyRecorder> merged = new EnumMap<>(Endpoint.class);
+        mix.keySet().forEach(endpoint -> merged.put(endpoint, new LatencyRecorder()));
+        perWorker.forEach(recorders -> recorders.forEach((endpoint, recorder) -> merged.get(endpoint).merge(recorder)));
+        return merged;
+    }
+
+    private int call(Endpoint endpoint, Random random) throws Exception {
+        switch (endpoint) {
+            case SIGNIN:
+                return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(credentials(
+                                SyntheticStudentGenerator.username(1 + random.nextInt(students))))));
+            case LIST:
+                int limit = intOption("listLimit", 50);
+                String query = limit > 0 ? "?limit=" + limit + "&after=" + (1 + random.nextInt(students + 1)) : "";
+                return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/students" + query))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .GET());
+            case SEARCH:
+                String[] names = random.nextBoolean() ? SyntheticStudentGenerator.FIRST_NAMES : SyntheticStudentGenerator.LAST_NAMES;
+                return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/students/search?keyword="
+                                + names[random.nextInt(names.length)].toLowerCase()))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .GET());
+            default:
+                String fullName = SyntheticStudentGenerator.FIRST_NAMES[random.nextInt(SyntheticStudentGenerator.FIRST_NAMES.length)]
+                        + " " + SyntheticStudentGenerator.LAST_NAMES[random.nextInt(SyntheticStudentGenerator.LAST_NAMES.length)];
+                return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/students/profile"))
+                        .header("Authorization", "Bearer " + userTokens.get(random.nextInt(userTokens.size())))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("fullName", fullName)))));
+        }
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private String credentials(String username) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD));
+    }
+
+    private String signin(String username) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials(username)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Signin failed for " + username + ": " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private void printReport(Map<Endpoint, LatencyRecorder> results, double elapsedSeconds) {
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms");
+        results.forEach((endpoint, recorder) -> {
+            Map<String, Object> summary = recorder.summary(elapsedSeconds);
+            System.out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", endpoint.name().toLowerCase(),
+                    summary.get("requests"), summary.get("throughput"), summary.get("errors"),
+                    summary.get("p50Ms"), summary.get("p99Ms"), summary.get("p999Ms"));
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.registration.benchmark.load;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.registration.model.ERole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Query plans before and after the index migrations: migrates an empty database to V1 (the schema as
+// Hibernate created it), seeds synthetic students, runs EXPLAIN ANALYZE and times the queries behind our
+// access patterns, then applies the remaining migrations and repeats.
+//
+//   java -cp target/benchmarks.jar com.example.registration.benchmark.load.QueryPlanReport \
+//        --students=100000 --seed=42 --repeat=20
+//
+// Defaults to in-memory H2; --url=jdbc:mysql://host/db --username=.. --password=.. runs the MySQL
+// migrations instead (the database must be empty, MySQL 8.0.18+ for EXPLAIN ANALYZE).
+public class QueryPlanReport {
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    QueryPlanReport(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // No Spring Boot here to apply its logging defaults; keep Flyway and JDBC at INFO
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 3) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        new QueryPlanReport(options).run();
+    }
+
+    void run() throws Exception {
+        String url = options.getOrDefault("url", "jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1");
+        String vendor = url.startsWith("jdbc:mysql:") ? "mysql" : "h2";
+        int students = Integer.parseInt(options.getOrDefault("students", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int repeat = Integer.parseInt(options.getOrDefault("repeat", "20"));
+
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url,
+                options.getOrDefault("username", "sa"), options.getOrDefault("password", ""), true);
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            migrate(dataSource, vendor, MigrationVersion.fromVersion("1"));
+            for (ERole role : ERole.values()) {
+                jdbcTemplate.update("insert into roles (name) values (?)", role.name());
+            }
+            long started = System.nanoTime();
+            new SyntheticStudentGenerator(jdbcTemplate, seed).generate(students, "{noop}secret123");
+            System.out.printf("Seeded %d students in %d ms%n", students, (System.nanoTime() - started) / 1_000_000);
+
+            Map<String, String> queries = queries(jdbcTemplate, students);
+            Map<String, Map<String, Object>> before = measure(jdbcTemplate, vendor, queries, repeat);
+            migrate(dataSource, vendor, MigrationVersion.LATEST);
+            Map<String, Map<String, Object>> after = measure(jdbcTemplate, vendor, queries, repeat);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("vendor", vendor);
+            settings.put("students", students);
+            settings.put("seed", seed);
+            settings.put("repeat", repeat);
+            report.put("settings", settings);
+            Map<String, Object> results = new LinkedHashMap<>();
+            queries.forEach((name, sql) -> {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("sql", sql);
+                result.put("before", before.get(name));
+                result.put("after", after.get(name));
+                results.put(name, result);
+            });
+            report.put("queries", results);
+
+            printReport(queries, before, after);
+            File out = new File(options.getOrDefault("out", "query-plans.json"));
+            objectMapper.writeValue(out, report);
+            System.out.println("Results written to " + out.getAbsolutePath());
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static void migrate(SingleConnectionDataSource dataSource, String vendor, MigrationVersion target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/" + vendor)
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    // The statements the application issues (as generated SQL) for its main access patterns, with literal values
+    private static Map<String, String> queries(JdbcTemplate jdbcTemplate, int students) {
+        Integer adminRole = jdbcTemplate.queryForObject("select id from roles where name = ?", Integer.class,
+                ERole.ROLE_ADMIN.name());
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("studentPage", "select id, username, full_name, email, enrollment_date from users "
+                + "where full_name is not null and enrollment_date is not null and id < " + (students / 2)
+                + " order by id desc limit 20");
+        queries.put("enrolledBetween", "select id from users where full_name is not null and enrollment_date is not null "
+                + "and enrollment_date between date '2020-01-01' and date '2020-01-31'");
+        queries.put("inactiveSince", "select count(*) from users where is_active = false "
+                + "and enrollment_date >= date '2024-01-01'");
+        queries.put("nameLookup", "select id, username, email from users where full_name = 'Grace Hopper'");
+        queries.put("namePrefix", "select id, full_name from users where full_name like 'Ada%' order by full_name limit 20");
+        queries.put("roleMembers", "select user_id from user_roles where role_id = " + adminRole);
+        return queries;
+    }
+
+    private static Map<String, Map<String, Object>> measure(JdbcTemplate jdbcTemplate, String vendor,
+                                                            Map<String, String> queries, int repeat) {
+        jdbcTemplate.execute(vendor.equals("mysql") ? "analyze table users, user_roles" : "analyze");
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        queries.forEach((name, sql) -> {
+            List<String> plan = jdbcTemplate.queryForList("explain analyze " + sql, String.class);
+            // One untimed run to warm the statement and page caches
+            jdbcTemplate.queryForList(sql);
+            long started = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                jdbcTemplate.queryForList(sql);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("meanMs", Math.round((System.nanoTime() - started) / 1_000.0 / repeat) / 1_000.0);
+            result.put("plan", plan.stream().collect(Collectors.joining("\n")));
+            results.put(name, result);
+        });
+        return results;
+    }
+
+    private static void printReport(Map<String, String> queries, Map<String, Map<String, Object>> before,
+                                    Map<String, Map<String, Object>> after) {
+        System.out.println();
+        System.out.printf("%-16s %12s %12s%n", "query", "before ms", "after ms");
+        queries.keySet().forEach(name -> System.out.printf("%-16s %12.3f %12.3f%n", name,
+                before.get(name).get("meanMs"), after.get(name).get("meanMs")));
+        queries.forEach((name, sql) -> {
+            System.out.println();
+            System.out.println("== " + name + ": " + sql);
+            System.out.println("-- before (V1)");
+            System.out.println(before.get(name).get("plan"));
+            System.out.println("-- after (latest)");
+            System.out.println(after.get(name).get("plan"));
+        });
+    }
+}
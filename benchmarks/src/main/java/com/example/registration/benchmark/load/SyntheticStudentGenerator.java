@@ -0,0 +1,81 @@
+package com.example.registration.benchmark.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Writes deterministic synthetic students straight into the users table with batched inserts.
+// The same seed and count always produce the same rows, so runs are comparable.
+public class SyntheticStudentGenerator {
+    public static final String USERNAME_PREFIX = "load";
+    public static final String ADMIN_USERNAME = "loadadmin";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDate FIRST_ENROLLMENT = LocalDate.of(2015, 9, 1);
+    private static final LocalDateTime FIRST_SIGNUP = LocalDateTime.of(2015, 6, 1, 8, 0);
+
+    static final String[] FIRST_NAMES = {
+            "Ada", "Alan", "Grace", "Linus", "Barbara", "Dennis", "Frances", "Ken", "Margaret", "John",
+            "Radia", "Edsger", "Katherine", "Donald", "Sophie", "Tim", "Hedy", "Niklaus", "Anita", "Bjarne"
+    };
+    static final String[] LAST_NAMES = {
+            "Lovelace", "Turing", "Hopper", "Torvalds", "Liskov", "Ritchie", "Allen", "Thompson", "Hamilton", "McCarthy",
+            "Perlman", "Dijkstra", "Johnson", "Knuth", "Wilson", "Berners", "Lamarr", "Wirth", "Borg", "Stroustrup"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticStudentGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    public static String username(int index) {
+        return USERNAME_PREFIX + index;
+    }
+
+    // Inserts students load1..load<count> plus the loadadmin account, all sharing one password hash
+    public void generate(int count, String passwordHash) {
+        Random random = new Random(seed);
+        String sql = "insert into users (username, email, password, full_name, enrollment_date, created_at, updated_at, is_active) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        batch.add(row(ADMIN_USERNAME, "Load Admin", FIRST_ENROLLMENT, FIRST_SIGNUP, passwordHash));
+        for (int i = 1; i <= count; i++) {
+            String fullName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            LocalDate enrollmentDate = FIRST_ENROLLMENT.plusDays(random.nextInt(3650));
+            LocalDateTime createdAt = FIRST_SIGNUP.plusMinutes(random.nextInt(5_000_000));
+            batch.add(row(username(i), fullName, enrollmentDate, createdAt, passwordHash));
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+
+        jdbcTemplate.update("insert into user_roles (user_id, role_id) "
+                + "select u.id, r.id from users u, roles r where u.username like ? and u.username <> ? and r.name = 'ROLE_USER'",
+                USERNAME_PREFIX + "%", ADMIN_USERNAME);
+        jdbcTemplate.update("insert into user_roles (user_id, role_id) "
+                + "select u.id, r.id from users u, roles r where u.username = ? and r.name = 'ROLE_ADMIN'",
+                ADMIN_USERNAME);
+    }
+
+    private static Object[] row(String username, String fullName, LocalDate enrollmentDate,
+                                LocalDateTime createdAt, String passwordHash) {
+        Timestamp created = Timestamp.valueOf(createdAt);
+        return new Object[] {username, username + "@example.com", passwordHash, fullName,
+                Date.valueOf(enrollmentDate), created, created, true};
+    }
+}
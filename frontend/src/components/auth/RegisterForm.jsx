@@ -1,4 +1,4 @@
-import React, { useState } from "react";
+import React, { useEffect, useState } from "react";
 import AuthService from "../../services/AuthService";
 
 function RegisterForm({ onRegister, onToggleMode }) {
@@ -15,6 +15,31 @@ function RegisterForm({ onRegister, onToggleMode }) {
   const [error, setError] = useState("");
   const [success, setSuccess] = useState("");
 
+  const [availability, setAvailability] = useState({});
+
+  // Check username/email availability once typing pauses
+  useEffect(() => {
+    const username = formData.username.trim();
+    const email = formData.email.trim();
+    if (!username && !email) {
+      setAvailability({});
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const result = await AuthService.checkAvailability(username, email);
+        if (!cancelled) setAvailability(result);
+      } catch (err) {
+        if (!cancelled) setAvailability({});
+      }
+    }, 400);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [formData.username, formData.email]);
+
   const handleSubmit = async (e) => {
     e.preventDefault();
     setLoading(true);
@@ -74,6 +99,9 @@ function RegisterForm({ onRegister, onToggleMode }) {
               required
               className="form-input"
             />
+            {availability.usernameAvailable === false && (
+              <small className="form-help">This username is already taken</small>
+            )}
           </div>
           
           <div className="form-group">
@@ -85,6 +113,9 @@ function RegisterForm({ onRegister, onToggleMode }) {
               required
               className="form-input"
             />
+            {availability.emailAvailable === false && (
+              <small className="form-help">This email is already in use</small>
+            )}
           </div>
           
           <div className="form-group">
@@ -22,8 +22,9 @@ function UserManagement({ hasRole, currentUser }) {
   const fetchUsers = useCallback(async () => {
     try {
       setLoading(true);
-      // Add cache busting parameter to ensure fresh data
-      const response = await axios.get(`${API_BASE_URL}/students?_t=${Date.now()}`);
+      // Only the columns the table and edit form use; responses carry an ETag and must be revalidated,
+      // so the browser cache never serves stale data
+      const response = await axios.get(`${API_BASE_URL}/students?fields=id,username,email,fullName,enrollmentDate,roles`);
       console.log("Fetched users from API:", response.data);
       
       // Log each user's roles for debugging
@@ -125,8 +126,7 @@ function UserManagement({ hasRole, currentUser }) {
       username: user.username || "",
       email: user.email || "",
       fullName: user.fullName || "",
-      enrollmentDate: user.enrollmentDate ? user.enrollmentDate.split('T')[0] : 
-                      user.createdAt ? user.createdAt.split('T')[0] : "",
+      enrollmentDate: user.enrollmentDate ? user.enrollmentDate.split('T')[0] : "",
       roles: userRoles
     });
   };
@@ -231,8 +231,7 @@ function UserManagement({ hasRole, currentUser }) {
         email: editForm.email.trim(),
         fullName: editForm.fullName.trim(),
         enrollmentDate: editForm.enrollmentDate,
-        roles: editForm.roles, // Send roles as simple string array
-        createdAt: editingUser.createdAt
+        roles: editForm.roles // Send roles as simple string array
       };
       
       console.log("Updating user with data:", updateRequest);
@@ -422,8 +421,7 @@ function UserManagement({ hasRole, currentUser }) {
                     </div>
                   </td>
                   <td>
-                    {user.enrollmentDate ? new Date(user.enrollmentDate).toLocaleDateString() : 
-                     user.createdAt ? new Date(user.createdAt).toLocaleDateString() : 'Unknown'}
+                    {user.enrollmentDate ? new Date(user.enrollmentDate).toLocaleDateString() : 'Unknown'}
                   </td>
                   <td>
                     <div className="action-buttons">
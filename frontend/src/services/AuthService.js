@@ -26,6 +26,14 @@ const AuthService = {
     });
   },
 
+  // Whether a username and/or email is still free; a hint only, signup re-checks
+  checkAvailability: async (username, email) => {
+    const response = await axios.get(`${API_BASE_URL}/auth/availability`, {
+      params: { username: username || undefined, email: email || undefined }
+    });
+    return response.data;
+  },
+
   logout: () => {
     localStorage.removeItem("user");
   },